@@ -0,0 +1,38 @@
+package com.example.demo.benchmark;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import com.example.demo.QuerydslDemoApplication;
+
+/**
+ * 벤치마크용 스프링 컨텍스트(bench 프로파일, 내장 H2 메모리 DB).
+ */
+public final class BenchmarkContext {
+
+    public static final int TEAM_COUNT = 10;
+
+    private BenchmarkContext() {
+    }
+
+    public static ConfigurableApplicationContext start(String... args) {
+        String[] all = new String[args.length + 1];
+        all[0] = "--spring.profiles.active=bench";
+        System.arraycopy(args, 0, all, 1, args.length);
+        return SpringApplication.run(QuerydslDemoApplication.class, all);
+    }
+
+    /**
+     * JPA 를 거치지 않고 H2 의 system_range 로 한 번에 채운다.
+     * team 은 TEAM_COUNT 개, member 의 age 는 0~99, team 은 균등 분포.
+     */
+    public static void seed(ConfigurableApplicationContext context, int members) {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("insert into team (team_id, name) "
+                        + "select x, 'team' || x from system_range(1, " + TEAM_COUNT + ")");
+        jdbcTemplate.update("insert into member (member_id, username, age, team_id) "
+                        + "select x + " + TEAM_COUNT + ", 'member' || x, mod(x, 100), mod(x, " + TEAM_COUNT + ") + 1 "
+                        + "from system_range(1, " + members + ")");
+        jdbcTemplate.execute("analyze");
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.demo.benchmark;
+
+import javax.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.example.demo.entity.Member;
+import com.example.demo.entity.Team;
+import com.example.demo.support.PooledSequenceGenerator;
+
+/**
+ * 시퀀스 할당 크기별 insert 처리량.
+ * allocationSize=1 은 예전 @GeneratedValue 처럼 insert 마다 시퀀스를 조회하고, 50 은 pooled-lo 블록을 쓴다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+public class MemberInsertBenchmark {
+
+    private static final int ROWS_PER_TX = 1000;
+
+    @Param({"1", "50"})
+    public int allocationSize;
+
+    private ConfigurableApplicationContext context;
+    private EntityManager em;
+    private TransactionTemplate transactionTemplate;
+    private Team team;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(
+                        "--spring.jpa.properties." + PooledSequenceGenerator.ALLOCATION_SIZE + "=" + allocationSize);
+        em = context.getBean(EntityManager.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        team = transactionTemplate.execute(status -> {
+            Team t = new Team("teamA");
+            em.persist(t);
+            return t;
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS_PER_TX)
+    public void insertMembers() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team managed = em.getReference(Team.class, team.getId());
+            for (int i = 0; i < ROWS_PER_TX; i++) {
+                em.persist(new Member("member" + i, i % 100, managed));
+            }
+            em.flush();
+            em.clear();
+        });
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.demo.benchmark;
+
+import static com.example.demo.entity.QMember.member;
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import com.example.demo.dto.MemberDto;
+import com.example.demo.dto.MemberSearchCondition;
+import com.example.demo.dto.MemberTeamDto;
+import com.example.demo.dto.QMemberDto;
+import com.example.demo.repository.MemberJpaRepository;
+import com.example.demo.repository.MemberRepository;
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+/**
+ * 동적 쿼리(BooleanBuilder vs where 파라미터), 페이징(fetchResults vs count 분리),
+ * DTO 프로젝션(bean / fields / constructor / @QueryProjection) 비용 비교.
+ * 처리량과 지연 백분위(sample), gc 프로파일러로 연산당 할당량을 함께 본다.
+ */
+@State(Scope.Benchmark)
+public class MemberQueryBenchmark {
+
+    private static final int PROJECTION_LIMIT = 1000;
+
+    @Param({"10000", "1000000", "10000000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private MemberJpaRepository memberJpaRepository;
+    private MemberRepository memberRepository;
+    private JPAQueryFactory queryFactory;
+
+    private MemberSearchCondition condition;
+    private PageRequest deepPage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        BenchmarkContext.seed(context, rows);
+
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+        memberRepository = context.getBean(MemberRepository.class);
+        queryFactory = new JPAQueryFactory(context.getBean(EntityManager.class));
+
+        // 전체의 1/100 이 걸리는 조건 (seed 의 age 는 mod(x, 100)).
+        // team 은 mod(x, 10) 이라 age 가 정해지면 team 도 정해지므로 팀 조건은 더 좁히지 못한다.
+        condition = MemberSearchCondition.builder()
+                                        .ageGoe(20)
+                                        .ageLoe(20)
+                                        .build();
+        // 걸리는 행의 가운데 페이지
+        deepPage = PageRequest.of(rows / 100 / 20 / 2, 20);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> searchByBuilder() {
+        return memberJpaRepository.searchByBuilder(condition);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> searchWhereParam() {
+        return memberJpaRepository.search(condition);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> pageFetchResults() {
+        return memberRepository.searchPageSimple(condition, deepPage);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> pageSeparateCount() {
+        return memberRepository.searchPageComplex(condition, deepPage);
+    }
+
+    @Benchmark
+    public List<MemberDto> projectionBean() {
+        return queryFactory.select(Projections.bean(MemberDto.class, member.username, member.age))
+                                        .from(member).limit(PROJECTION_LIMIT).fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> projectionFields() {
+        return queryFactory.select(Projections.fields(MemberDto.class, member.username, member.age))
+                                        .from(member).limit(PROJECTION_LIMIT).fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> projectionConstructor() {
+        return queryFactory.select(Projections.constructor(MemberDto.class, member.username, member.age))
+                                        .from(member).limit(PROJECTION_LIMIT).fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> projectionQueryProjection() {
+        return queryFactory.select(new QMemberDto(member.username, member.age))
+                                        .from(member).limit(PROJECTION_LIMIT).fetch();
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.demo.bulk;
+
+/**
+ * 동시에 진행할 수 있는 import 수(max-concurrent-imports)를 넘어서 받지 않았다. 잠시 뒤 다시 보내면 된다.
+ */
+public class ImportRejectedException extends RuntimeException {
+
+    public ImportRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.demo.bulk;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import com.example.demo.dto.MemberBulkCommand;
+import lombok.Getter;
+
+/**
+ * 벌크 변경 작업 하나의 진행 상태.
+ * nextFromId 까지는 커밋되었으므로 중단/실패한 작업은 fromId=nextFromId 로 다시 요청하면 이어서 진행한다.
+ */
+@Getter
+public class MemberBulkJob {
+
+    public enum Status {
+        RUNNING, COMPLETED, FAILED, CANCELLED
+    }
+
+    private final String id;
+    private final MemberBulkCommand command;
+    private final int chunkSize;
+    private final long fromId;
+    private final Instant startedAt = Instant.now();
+
+    private volatile Status status = Status.RUNNING;
+    private volatile long toId;
+    private volatile long nextFromId;
+    private final AtomicLong affectedRows = new AtomicLong();
+    private final AtomicLong chunks = new AtomicLong();
+    private volatile Instant finishedAt;
+    private volatile String error;
+    private volatile boolean cancelRequested;
+
+    MemberBulkJob(String id, MemberBulkCommand command, int chunkSize, long fromId) {
+        this.id = id;
+        this.command = command;
+        this.chunkSize = chunkSize;
+        this.fromId = fromId;
+        this.nextFromId = fromId;
+    }
+
+    public long getAffectedRows() {
+        return affectedRows.get();
+    }
+
+    public long getChunks() {
+        return chunks.get();
+    }
+
+    /** 처리한 id 범위 비율 (0.0 ~ 1.0) */
+    public double getProgress() {
+        if (status == Status.COMPLETED) {
+            return 1.0;
+        }
+        long range = toId - fromId;
+        return range <= 0 ? 0.0 : Math.min(1.0, (double) (nextFromId - fromId) / range);
+    }
+
+    void start(long toId) {
+        this.toId = toId;
+    }
+
+    void chunkCommitted(long nextFromId, long affected) {
+        this.nextFromId = nextFromId;
+        this.affectedRows.addAndGet(affected);
+        this.chunks.incrementAndGet();
+    }
+
+    void finish(Status status, String error) {
+        this.status = status;
+        this.error = error;
+        this.finishedAt = Instant.now();
+    }
+
+    void cancel() {
+        this.cancelRequested = true;
+    }
+
+    boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    boolean isDone() {
+        return status != Status.RUNNING;
+    }
+}
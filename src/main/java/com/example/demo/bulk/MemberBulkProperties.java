@@ -0,0 +1,29 @@
+package com.example.demo.bulk;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 회원 벌크 변경 작업 설정 (demo.bulk.*).
+ */
+@Component
+@ConfigurationProperties(prefix = "demo.bulk")
+@Getter
+@Setter
+public class MemberBulkProperties {
+
+    /** 한 트랜잭션에서 처리하는 member_id 범위 크기 (요청에 chunkSize 가 없을 때) */
+    private int chunkSize = 10_000;
+
+    /** 동시에 실행할 수 있는 작업 수 */
+    private int threads = 1;
+
+    /** chunk 사이 쉬는 시간. 다른 트랜잭션이 잠금을 얻을 틈을 준다. */
+    private Duration pause = Duration.ZERO;
+
+    /** 끝난 작업 상태를 보관하는 개수 */
+    private int retainedJobs = 100;
+}
@@ -0,0 +1,132 @@
+package com.example.demo.bulk;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.annotation.PreDestroy;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.example.demo.bulk.MemberBulkJob.Status;
+import com.example.demo.dto.MemberBulkCommand;
+import com.example.demo.repository.MemberRepository;
+import com.example.demo.stats.TeamStatsService;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 검색 조건 기반 update/delete 를 member_id 범위 chunk 로 나눠 chunk 마다 커밋한다.
+ * 한 번에 잡는 잠금과 undo 가 chunk 크기로 제한되므로 수백만 건을 바꾸는 동안에도 다른 트랜잭션이 오래 기다리지 않는다.
+ * 작업은 별도 스레드에서 돌고 진행 상태는 {@link #find} 로 조회한다.
+ */
+@Slf4j
+@Service
+public class MemberBulkService {
+
+    private final MemberRepository memberRepository;
+    private final TeamStatsService teamStatsService;
+    private final MemberBulkProperties properties;
+    private final TransactionTemplate chunkTx;
+    private final ExecutorService executor;
+    private final Map<String, MemberBulkJob> jobs = new ConcurrentHashMap<>();
+
+    public MemberBulkService(MemberRepository memberRepository, TeamStatsService teamStatsService,
+                                    MemberBulkProperties properties, PlatformTransactionManager transactionManager) {
+        this.memberRepository = memberRepository;
+        this.teamStatsService = teamStatsService;
+        this.properties = properties;
+        this.chunkTx = new TransactionTemplate(transactionManager);
+        this.chunkTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.executor = Executors.newFixedThreadPool(properties.getThreads(), new CustomizableThreadFactory("member-bulk-"));
+    }
+
+    /**
+     * @param chunkSize null 이면 demo.bulk.chunk-size
+     * @param fromId 이 id 부터 처리한다. 중단된 작업을 이어서 할 때 이전 작업의 nextFromId 를 넘긴다.
+     */
+    public MemberBulkJob submit(MemberBulkCommand command, Integer chunkSize, long fromId) {
+        command.validate();
+        int size = chunkSize != null ? chunkSize : properties.getChunkSize();
+        if (size < 1) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + size);
+        }
+
+        evictFinishedJobs();
+        MemberBulkJob job = new MemberBulkJob(UUID.randomUUID().toString(), command, size, fromId);
+        jobs.put(job.getId(), job);
+        executor.execute(() -> run(job));
+        return job;
+    }
+
+    public Optional<MemberBulkJob> find(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    /**
+     * 진행 중인 chunk 는 끝까지 커밋하고 다음 chunk 부터 멈춘다.
+     */
+    public Optional<MemberBulkJob> cancel(String id) {
+        MemberBulkJob job = jobs.get(id);
+        if (job != null) {
+            job.cancel();
+        }
+        return Optional.ofNullable(job);
+    }
+
+    /**
+     * username 색인은 chunk 마다 바뀐 행만 커밋 후에 반영한다 (MemberRepository.bulkChunk).
+     */
+    private void run(MemberBulkJob job) {
+        try {
+            Long maxId = memberRepository.findMaxMemberId();
+            long toId = maxId != null ? maxId + 1 : job.getFromId();
+            job.start(toId);
+
+            for (long from = job.getFromId(); from < toId; from += job.getChunkSize()) {
+                if (job.isCancelRequested()) {
+                    job.finish(Status.CANCELLED, null);
+                    return;
+                }
+
+                long chunkFrom = from;
+                long chunkTo = Math.min(toId, from + job.getChunkSize());
+                Long affected = chunkTx.execute(status -> memberRepository.bulkChunk(job.getCommand(), chunkFrom, chunkTo));
+                job.chunkCommitted(chunkTo, affected != null ? affected : 0);
+                pause();
+            }
+            job.finish(Status.COMPLETED, null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.finish(Status.CANCELLED, "interrupted");
+        } catch (RuntimeException e) {
+            log.warn("member bulk job {} failed at member_id {}", job.getId(), job.getNextFromId(), e);
+            job.finish(Status.FAILED, e.getMessage());
+        } finally {
+            if (job.getAffectedRows() > 0) {
+                teamStatsService.requestRebuild(); // 벌크 JPQL 은 team_stats 를 거치지 않는다
+            }
+        }
+    }
+
+    private void pause() throws InterruptedException {
+        if (!properties.getPause().isZero()) {
+            Thread.sleep(properties.getPause().toMillis());
+        }
+    }
+
+    private void evictFinishedJobs() {
+        if (jobs.size() < properties.getRetainedJobs()) {
+            return;
+        }
+        jobs.values().removeIf(MemberBulkJob::isDone);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
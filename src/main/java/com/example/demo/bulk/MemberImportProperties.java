@@ -0,0 +1,28 @@
+package com.example.demo.bulk;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 회원 대량 등록 설정 (demo.import.*).
+ */
+@Component
+@ConfigurationProperties(prefix = "demo.import")
+@Getter
+@Setter
+public class MemberImportProperties {
+
+    /** 한 트랜잭션에서 insert 하는 행 수 */
+    private int batchSize = 1000;
+
+    /** 읽어 두고 아직 DB 에 쓰지 못한 batch 수 상한. 다 차면 요청 본문 읽기를 멈춘다. */
+    private int maxPendingBatches = 4;
+
+    /** 동시에 받을 수 있는 등록 요청 수. 요청마다 커넥션을 최대 하나 쓴다. */
+    private int maxConcurrentImports = 2;
+
+    /** 응답에 담는 행 오류 수 상한. 넘는 오류는 개수만 센다. */
+    private int maxReportedErrors = 1000;
+}
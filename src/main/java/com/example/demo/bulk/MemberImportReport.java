@@ -0,0 +1,77 @@
+package com.example.demo.bulk;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * 대량 등록 결과. 행 오류는 maxReportedErrors 개까지만 담고 나머지는 failed/duplicates 개수에만 더한다.
+ */
+@Getter
+public class MemberImportReport {
+
+    @Getter
+    public static class RowError {
+        private final long line;
+        private final String username;
+        private final String message;
+
+        RowError(long line, String username, String message) {
+            this.line = line;
+            this.username = username;
+            this.message = message;
+        }
+    }
+
+    private long rows;
+    private long inserted;
+    private long duplicates;
+    private long failed;
+    private long batches;
+    private long elapsedMillis;
+    private boolean errorsTruncated;
+    private final List<RowError> errors = new ArrayList<>();
+    @Getter(AccessLevel.NONE)
+    private final int maxReportedErrors;
+
+    MemberImportReport(int maxReportedErrors) {
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    public synchronized List<RowError> getErrors() {
+        return Collections.unmodifiableList(new ArrayList<>(errors));
+    }
+
+    synchronized void row() {
+        rows++;
+    }
+
+    synchronized void batchInserted(int count) {
+        inserted += count;
+        batches++;
+    }
+
+    synchronized void duplicate(long line, String username) {
+        duplicates++;
+        addError(line, username, "duplicate username");
+    }
+
+    synchronized void failed(long line, String username, String message) {
+        failed++;
+        addError(line, username, message);
+    }
+
+    synchronized void finish(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    private void addError(long line, String username, String message) {
+        if (errors.size() < maxReportedErrors) {
+            errors.add(new RowError(line, username, message));
+        } else {
+            errorsTruncated = true;
+        }
+    }
+}
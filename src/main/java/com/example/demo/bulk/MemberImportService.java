@@ -0,0 +1,405 @@
+package com.example.demo.bulk;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+import com.example.demo.repository.TeamNameResolver;
+import com.example.demo.repository.UsernameIndex;
+import com.example.demo.stats.TeamStatsService;
+import com.example.demo.support.DataVersion;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * CSV/NDJSON 회원 대량 등록.
+ * 요청 스레드가 본문을 한 줄씩 읽어 batch 로 묶고, 쓰기 스레드 하나가 batch 마다 트랜잭션을 열어 JDBC batch insert 로 넣는다.
+ * 아직 못 쓴 batch 가 maxPendingBatches 개면 요청 스레드가 본문 읽기를 멈추므로, DB 가 느리면 업로드도 그만큼 느려지고 힙은 일정하다.
+ *
+ * - 팀 이름은 TeamNameResolver 캐시로 team_id 로 바꾼다. 없는 팀이면 그 행은 오류.
+ * - username 이 같은 회원이 이미 있거나 같은 batch 에 먼저 나온 행이 있으면 건너뛴다.
+ *   batch 는 순서대로 커밋되므로 파일 안의 앞 batch 와 겹치는 것도 DB 조회로 걸러진다.
+ *   (동시에 다른 경로로 같은 username 을 넣는 것까지는 막지 않는다. username 에 unique 제약이 없다.)
+ */
+@Slf4j
+@Service
+public class MemberImportService {
+
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    static final String CSV_HEADER = "username,age,team_name";
+
+    private static final String INSERT_MEMBER = "insert into member (member_id, username, age, team_id) values (?, ?, ?, ?)";
+    private static final int EXISTING_CHUNK_SIZE = 500;
+    private static final List<ImportRow> END = Collections.emptyList();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate batchTx;
+    private final TeamNameResolver teamNameResolver;
+    private final TeamStatsService teamStatsService;
+    private final UsernameIndex usernameIndex;
+    private final DataVersion dataVersion;
+    private final ObjectMapper objectMapper;
+    private final MemberImportProperties properties;
+    private final Semaphore imports;
+    private final ExecutorService writers;
+    private volatile long memberSeqIncrement;
+
+    public MemberImportService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                    TeamNameResolver teamNameResolver, TeamStatsService teamStatsService,
+                                    UsernameIndex usernameIndex, DataVersion dataVersion, ObjectMapper objectMapper,
+                                    MemberImportProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchTx = new TransactionTemplate(transactionManager);
+        this.batchTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.teamNameResolver = teamNameResolver;
+        this.teamStatsService = teamStatsService;
+        this.usernameIndex = usernameIndex;
+        this.dataVersion = dataVersion;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.imports = new Semaphore(properties.getMaxConcurrentImports());
+        this.writers = Executors.newFixedThreadPool(properties.getMaxConcurrentImports(),
+                                        new CustomizableThreadFactory("member-import-"));
+    }
+
+    /**
+     * 본문을 끝까지 읽고 마지막 batch 가 커밋된 뒤에 돌아온다.
+     * 중간에 본문 읽기가 실패해도 이미 커밋된 batch 는 그대로 남는다.
+     */
+    public MemberImportReport importMembers(InputStream in, Format format) throws IOException {
+        if (!imports.tryAcquire()) {
+            throw new ImportRejectedException("too many imports in progress (max " + properties.getMaxConcurrentImports() + ")");
+        }
+
+        long started = System.nanoTime();
+        MemberImportReport report = new MemberImportReport(properties.getMaxReportedErrors());
+        BlockingQueue<List<ImportRow>> pending = new ArrayBlockingQueue<>(properties.getMaxPendingBatches());
+        Future<?> writer = null;
+        try {
+            writer = writers.submit(() -> {
+                write(pending, report);
+                return null;
+            });
+            read(in, format, pending, writer, report);
+            writer.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("import interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("import failed", e.getCause());
+        } finally {
+            if (writer != null) {
+                writer.cancel(true);
+            }
+            imports.release();
+            if (report.getInserted() > 0) {
+                teamStatsService.requestRebuild(); // JDBC insert 는 team_stats 를 거치지 않는다
+            }
+        }
+
+        report.finish((System.nanoTime() - started) / 1_000_000);
+        return report;
+    }
+
+    private void read(InputStream in, Format format, BlockingQueue<List<ImportRow>> pending, Future<?> writer,
+                                    MemberImportReport report) throws IOException, InterruptedException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        List<ImportRow> batch = new ArrayList<>(properties.getBatchSize());
+        long line = 0;
+        String text;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (text.isBlank() || (line == 1 && format == Format.CSV && CSV_HEADER.equalsIgnoreCase(text.strip()))) {
+                continue;
+            }
+
+            report.row();
+            ImportRow row;
+            try {
+                row = format == Format.CSV ? parseCsv(line, text) : parseJson(line, text);
+            } catch (IllegalArgumentException | JsonProcessingException e) {
+                report.failed(line, null, e.getMessage());
+                continue;
+            }
+            String error = resolveTeam(row);
+            if (error != null) {
+                report.failed(line, row.username, error);
+                continue;
+            }
+
+            batch.add(row);
+            if (batch.size() >= properties.getBatchSize()) {
+                enqueue(pending, batch, writer);
+                batch = new ArrayList<>(properties.getBatchSize());
+            }
+        }
+        if (!batch.isEmpty()) {
+            enqueue(pending, batch, writer);
+        }
+        enqueue(pending, END, writer);
+    }
+
+    /**
+     * 큐가 차 있으면 쓰기 스레드가 따라올 때까지 기다린다. 쓰기 스레드가 죽었으면 더 기다리지 않는다.
+     */
+    private void enqueue(BlockingQueue<List<ImportRow>> pending, List<ImportRow> batch, Future<?> writer)
+                                    throws InterruptedException {
+        while (!pending.offer(batch, 1, TimeUnit.SECONDS)) {
+            if (writer.isDone()) {
+                return;
+            }
+        }
+    }
+
+    private void write(BlockingQueue<List<ImportRow>> pending, MemberImportReport report) throws InterruptedException {
+        List<ImportRow> batch;
+        while ((batch = pending.take()) != END) {
+            try {
+                insertBatch(batch, report);
+            } catch (RuntimeException e) {
+                log.warn("member import batch failed (lines {} ~ {})", batch.get(0).line, batch.get(batch.size() - 1).line, e);
+                for (ImportRow row : batch) {
+                    report.failed(row.line, row.username, "batch failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void insertBatch(List<ImportRow> batch, MemberImportReport report) {
+        List<ImportRow> duplicates = new ArrayList<>();
+        List<ImportRow> inserted = batchTx.execute(status -> {
+            Map<String, ImportRow> unique = new LinkedHashMap<>();
+            for (ImportRow row : batch) {
+                if (unique.putIfAbsent(row.username, row) != null) {
+                    duplicates.add(row);
+                }
+            }
+
+            Set<String> existing = existingUsernames(unique.keySet());
+            List<ImportRow> rows = new ArrayList<>(unique.size());
+            for (ImportRow row : unique.values()) {
+                if (existing.contains(row.username)) {
+                    duplicates.add(row);
+                } else {
+                    rows.add(row);
+                }
+            }
+            if (rows.isEmpty()) {
+                return rows;
+            }
+
+            long[] ids = allocateMemberIds(rows.size());
+            jdbcTemplate.batchUpdate(INSERT_MEMBER, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    ImportRow row = rows.get(i);
+                    ps.setLong(1, ids[i]);
+                    ps.setString(2, row.username);
+                    ps.setInt(3, row.age);
+                    ps.setObject(4, row.teamId, Types.BIGINT);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return rows.size();
+                }
+            });
+            dataVersion.bump();
+            usernameIndex.changedAfterCommit(usernameChanges(rows, ids)); // JDBC insert 는 username 색인 리스너를 거치지 않는다
+            return rows;
+        });
+
+        // 커밋된 뒤에만 결과에 반영한다
+        report.batchInserted(inserted.size());
+        for (ImportRow row : duplicates) {
+            report.duplicate(row.line, row.username);
+        }
+    }
+
+    private static List<UsernameIndex.Change> usernameChanges(List<ImportRow> rows, long[] ids) {
+        List<UsernameIndex.Change> changes = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            changes.add(new UsernameIndex.Change(ids[i], null, rows.get(i).username));
+        }
+        return changes;
+    }
+
+    private Set<String> existingUsernames(Collection<String> usernames) {
+        Set<String> existing = new HashSet<>();
+        List<String> all = new ArrayList<>(usernames);
+        for (int from = 0; from < all.size(); from += EXISTING_CHUNK_SIZE) {
+            List<String> chunk = all.subList(from, Math.min(all.size(), from + EXISTING_CHUNK_SIZE));
+            String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            existing.addAll(jdbcTemplate.queryForList("select username from member where username in (" + placeholders + ")",
+                                            String.class, chunk.toArray()));
+        }
+        return existing;
+    }
+
+    /**
+     * member_seq 에서 nextval 블록을 필요한 만큼 받아 id 를 나눠 준다. 엔티티 insert 와 같은 pooled-lo 규칙이므로 겹치지 않는다.
+     */
+    private long[] allocateMemberIds(int count) {
+        long increment = memberSeqIncrement();
+        long[] ids = new long[count];
+        for (int i = 0; i < count; ) {
+            Long first = jdbcTemplate.queryForObject("select next value for member_seq", Long.class);
+            for (long j = 0; j < increment && i < count; j++) {
+                ids[i++] = first + j;
+            }
+        }
+        return ids;
+    }
+
+    private long memberSeqIncrement() {
+        if (memberSeqIncrement == 0) {
+            memberSeqIncrement = jdbcTemplate.queryForObject(
+                                            "select increment from information_schema.sequences where lower(sequence_name) = ?",
+                                            Long.class, "member_seq");
+        }
+        return memberSeqIncrement;
+    }
+
+    /**
+     * @return 오류 메시지, 문제 없으면 null
+     */
+    private String resolveTeam(ImportRow row) {
+        if (!StringUtils.hasText(row.teamName)) {
+            return null;
+        }
+        List<Long> teamIds = teamNameResolver.resolve(row.teamName);
+        if (teamIds.isEmpty()) {
+            return "unknown team: " + row.teamName;
+        }
+        if (teamIds.size() > 1) {
+            return "ambiguous team: " + row.teamName + " (" + teamIds.size() + " teams)"; // 임의로 고르지 않는다
+        }
+        row.teamId = teamIds.get(0);
+        return null;
+    }
+
+    /**
+     * username,age,team_name. 값에 쉼표가 있으면 큰따옴표로 감싸고 따옴표는 두 번 쓴다. (한 행이 여러 줄에 걸치는 것은 지원하지 않음)
+     */
+    static ImportRow parseCsv(long line, String text) {
+        List<String> fields = new ArrayList<>(3);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quote");
+        }
+        fields.add(field.toString());
+
+        if (fields.size() < 2 || fields.size() > 3) {
+            throw new IllegalArgumentException("expected " + CSV_HEADER + " but got " + fields.size() + " fields");
+        }
+        return ImportRow.of(line, fields.get(0), parseAge(fields.get(1).strip()), fields.size() == 3 ? fields.get(2) : null);
+    }
+
+    /**
+     * {"username": "...", "age": 10, "teamName": "..."}
+     */
+    ImportRow parseJson(long line, String text) throws JsonProcessingException {
+        JsonNode node = objectMapper.readTree(text);
+        if (!node.isObject()) {
+            throw new IllegalArgumentException("expected a JSON object");
+        }
+        JsonNode age = node.path("age");
+        if (!age.isInt()) {
+            throw new IllegalArgumentException("age must be an integer");
+        }
+        return ImportRow.of(line, node.path("username").asText(null), age.intValue(), node.path("teamName").asText(null));
+    }
+
+    private static int parseAge(String age) {
+        try {
+            return Integer.parseInt(age);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("age must be an integer: " + age);
+        }
+    }
+
+    static class ImportRow {
+        final long line;
+        final String username;
+        final int age;
+        final String teamName;
+        Long teamId;
+
+        private ImportRow(long line, String username, int age, String teamName) {
+            this.line = line;
+            this.username = username;
+            this.age = age;
+            this.teamName = teamName;
+        }
+
+        static ImportRow of(long line, String username, int age, String teamName) {
+            if (!StringUtils.hasText(username)) {
+                throw new IllegalArgumentException("username is required");
+            }
+            if (age < 0) {
+                throw new IllegalArgumentException("age must not be negative: " + age);
+            }
+            return new ImportRow(line, username.strip(), age, StringUtils.hasText(teamName) ? teamName.strip() : null);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writers.shutdownNow();
+    }
+}
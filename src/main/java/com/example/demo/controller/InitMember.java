@@ -1,44 +1,26 @@
 package com.example.demo.controller;
 
-import javax.annotation.PostConstruct;
-import javax.persistence.EntityManager;
-import javax.persistence.PersistenceContext;
-import javax.transaction.Transactional;
+import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
-import com.example.demo.entity.Member;
-import com.example.demo.entity.Team;
+import com.example.demo.seed.SeedDataGenerator;
+import com.example.demo.seed.SeedProperties;
 import lombok.RequiredArgsConstructor;
 
+/**
+ * local 프로파일 기동 시 테스트 데이터 생성.
+ * 규모는 demo.seed.* 로 조절한다. ex) --demo.seed.teams=100 --demo.seed.members=10000000 --demo.seed.threads=8
+ */
 @Profile("local")
 @Component
 @RequiredArgsConstructor
-public class InitMember {
+public class InitMember implements CommandLineRunner {
     
-    private final InitMemberService initMemberService;
+    private final SeedDataGenerator seedDataGenerator;
+    private final SeedProperties seedProperties;
     
-    @PostConstruct
-    public void init() {
-        initMemberService.init();
-    }
-    
-    @Component
-    static class InitMemberService {
-        
-        @PersistenceContext
-        private EntityManager em;
-        
-        @Transactional
-        public void init() {
-            Team teamA = new Team("teamA");
-            Team teamB = new Team("teamB");
-            em.persist(teamA);
-            em.persist(teamB);
-            
-            for(int i = 0; i<100; i++) {
-                Team selectedTeam = i % 2 == 0 ? teamA : teamB;
-                em.persist(new Member("membmer"+i, i, selectedTeam));
-            }
-        }
+    @Override
+    public void run(String... args) {
+        seedDataGenerator.generate(seedProperties);
     }
 }
@@ -0,0 +1,44 @@
+package com.example.demo.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import com.example.demo.bulk.MemberBulkJob;
+import com.example.demo.bulk.MemberBulkService;
+import com.example.demo.dto.MemberBulkCommand;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 검색 조건 기반 회원 벌크 변경. 작업을 등록하고 바로 202 를 돌려주며 진행 상태는 GET 으로 조회한다.
+ */
+@RestController
+@RequestMapping("/members/bulk")
+@RequiredArgsConstructor
+public class MemberBulkController {
+
+    private final MemberBulkService memberBulkService;
+
+    @PostMapping
+    public ResponseEntity<MemberBulkJob> submit(@RequestBody MemberBulkCommand command,
+                                    @RequestParam(required = false) Integer chunkSize,
+                                    @RequestParam(defaultValue = "0") long fromId) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(memberBulkService.submit(command, chunkSize, fromId));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<MemberBulkJob> job(@PathVariable String id) {
+        return ResponseEntity.of(memberBulkService.find(id));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<MemberBulkJob> cancel(@PathVariable String id) {
+        return ResponseEntity.of(memberBulkService.cancel(id));
+    }
+}
@@ -1,35 +1,176 @@
 package com.example.demo.controller;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.OptionalLong;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import com.example.demo.dto.CountMode;
+import com.example.demo.dto.EstimatedPage;
+import com.example.demo.dto.FacetedPage;
+import com.example.demo.dto.MemberKeysetPage;
 import com.example.demo.dto.MemberSearchCondition;
 import com.example.demo.dto.MemberTeamDto;
 import com.example.demo.repository.MemberJpaRepository;
 import com.example.demo.repository.MemberRepository;
+import com.example.demo.support.DataVersion;
+import com.example.demo.support.PageTokenCodec;
+import com.example.demo.support.SearchETag;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import lombok.RequiredArgsConstructor;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
 
+    public static final String PAGE_TOKEN_HEADER = "X-Page-Token";
+    public static final String NDJSON = "application/x-ndjson";
+    public static final int MAX_BATCH_IDS = 10_000;
+
     private final MemberJpaRepository memberJpaRepository;
     private final MemberRepository memberRepository; 
+    private final PageTokenCodec pageTokenCodec;
+    private final DataVersion dataVersion;
+    private final ObjectMapper objectMapper;
     
+    /**
+     * v1 ~ v3 는 데이터 버전 기반 ETag 를 붙이고, If-None-Match 가 일치하면 검색 쿼리 없이 304 를 돌려준다.
+     * 버전은 검색보다 먼저, 검색과 같은 replica 에서 읽는다 (DataVersion, ReadRouting). 버전 행은 데이터와 함께 복제되므로
+     * 본문이 버전보다 새로울 수는 있어도(다음 요청이 한 번 더 200) 버전보다 오래될 수는 없다.
+     */
     @GetMapping("/v1/members")
-    public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition) {
+    public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition, WebRequest request) {
+        if (request.checkNotModified(SearchETag.of("v1", dataVersion.current(), condition, null))) {
+            return null;
+        }
         return memberJpaRepository.search(condition);
     }
+    
+    /**
+     * v1 과 같은 결과를 NDJSON(한 줄에 한 건, 줄마다 개행으로 끝남)으로 조회되는 대로 바로 내보낸다.
+     * 응답 스트림은 컨테이너가 닫으므로 writer 를 닫을 때 같이 닫지 않는다.
+     */
+    @GetMapping(value = "/v1/members/stream", produces = NDJSON)
+    public StreamingResponseBody streamMemberV1(MemberSearchCondition condition) {
+        return out -> {
+            long count;
+            try (SequenceWriter writer = objectMapper.writer()
+                                            .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                                            .withRootValueSeparator("\n")
+                                            .writeValues(out)) {
+                count = memberJpaRepository.searchStream(condition, dto -> {
+                    try {
+                        writer.write(dto);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+            if (count > 0) {
+                out.write('\n'); // 구분자는 값 사이에만 들어가므로 마지막 줄 개행
+            }
+            out.flush();
+        };
+    }
 
     @GetMapping("/v2/members")
-    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageble) {
+    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageble, WebRequest request) {
+        if (request.checkNotModified(SearchETag.of("v2", dataVersion.current(), condition, pageble))) {
+            return null;
+        }
         return memberRepository.searchPageSimple(condition, pageble);
     }
     
+    /**
+     * 응답 헤더의 페이지 토큰을 pageToken 으로 다시 보내면 데이터가 바뀌지 않은 동안 count 쿼리를 생략한다.
+     * parallelCount=true 면 count 쿼리를 content 쿼리와 동시에 실행한다.
+     * count=ESTIMATE 면 전체 건수로 추정값을 돌려준다 (EstimatedPage, exact=false 면 errorBound 포함). 추정값에는 토큰도 ETag 도 주지 않는다.
+     * 같은 버전에서도 추정값은 정확한 값으로 바뀌므로, ETag 를 주면 클라이언트가 추정값을 계속 304 로 재사용한다.
+     */
     @GetMapping("/v3/members")
-    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageble) {
-        return memberRepository.searchPageComplex(condition, pageble);
+    public ResponseEntity<Page<MemberTeamDto>> searchMemberV3(MemberSearchCondition condition, Pageable pageble,
+                                    @RequestParam(required = false) String pageToken,
+                                    @RequestParam(defaultValue = "false") boolean parallelCount,
+                                    @RequestParam(defaultValue = "EXACT") CountMode count,
+                                    WebRequest request) {
+        DataVersion.Stamp version = dataVersion.current();
+        String endpoint = count == CountMode.ESTIMATE ? "v3-estimate" : "v3"; // 같은 버전이어도 응답 본문이 다르다
+        String etag = SearchETag.of(endpoint, version, condition, pageble);
+        if (count != CountMode.ESTIMATE && request.checkNotModified(etag)) {
+            return null;
+        }
+        
+        OptionalLong total = pageTokenCodec.verifyTotal(pageToken, condition, version);
+        
+        Page<MemberTeamDto> page;
+        if (total.isPresent()) {
+            page = memberRepository.searchPageWithTotal(condition, pageble, total.getAsLong());
+        } else if (count == CountMode.ESTIMATE) {
+            EstimatedPage<MemberTeamDto> estimated = memberRepository.searchPageEstimated(condition, pageble);
+            if (!estimated.isExact()) {
+                return ResponseEntity.ok(estimated);
+            }
+            // 정확한 값일 때만 ETag. If-None-Match 가 일치하면 ResponseEntity 처리에서 304 가 된다
+            return ResponseEntity.ok()
+                            .eTag(etag)
+                            .header(PAGE_TOKEN_HEADER, pageTokenCodec.issue(condition, estimated.getTotalElements(), version))
+                            .body(estimated);
+        } else if (parallelCount) {
+            page = memberRepository.searchPageParallel(condition, pageble);
+        } else {
+            page = memberRepository.searchPageComplex(condition, pageble);
+        }
+        
+        return ResponseEntity.ok()
+                        .header(PAGE_TOKEN_HEADER, pageTokenCodec.issue(condition, page.getTotalElements(), version))
+                        .body(page);
+    }
+    
+    /**
+     * size 는 MemberKeysetPage.MAX_SIZE 로 줄인다. 1 보다 작으면 400.
+     */
+    @GetMapping("/v4/members")
+    public MemberKeysetPage searchMemberV4(MemberSearchCondition condition,
+                                    @RequestParam(required = false) String token,
+                                    @RequestParam(defaultValue = "20") int size) {
+        return memberRepository.searchKeyset(condition, token, Math.min(size, MemberKeysetPage.MAX_SIZE));
+    }
+    
+    /**
+     * v3 와 같은 쿼리(MemberSearchQueryRegistry)에 pageable 정렬을 더한다. ETag, 페이지 토큰은 붙이지 않는다.
+     */
+    @GetMapping("/v5/members")
+    public Page<MemberTeamDto> searchMemberV5(MemberSearchCondition condition, Pageable pageble) {
+        return memberRepository.searchPageCompiled(condition, pageble);
+    }
+    
+    /**
+     * v3 페이지 + 팀별/나이 구간별 건수. 페이지마다 쿼리 두 번(content, 집계)으로 고정.
+     */
+    @GetMapping("/v6/members")
+    public FacetedPage<MemberTeamDto> searchMemberV6(MemberSearchCondition condition, Pageable pageble) {
+        return memberRepository.searchPageFaceted(condition, pageble);
+    }
+    
+    /**
+     * id 목록으로 한 번에 조회. 요청한 id 순서대로 돌려주며 없는 id 는 빠진다.
+     */
+    @PostMapping("/members/batch")
+    public List<MemberTeamDto> findMembers(@RequestBody List<Long> ids) {
+        if (ids.size() > MAX_BATCH_IDS) {
+            throw new IllegalArgumentException("too many ids: " + ids.size() + " (max " + MAX_BATCH_IDS + ")");
+        }
+        return memberRepository.findMembersByIds(ids);
     }
 }
@@ -0,0 +1,48 @@
+package com.example.demo.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import com.example.demo.export.MemberExportFormat;
+import com.example.demo.export.MemberExportJob;
+import com.example.demo.export.MemberExportService;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 회원 전체 내보내기. 작업을 등록하고 바로 202 를 돌려주며 진행률/처리량은 GET 으로 조회한다.
+ */
+@RestController
+@RequestMapping("/members/export")
+@RequiredArgsConstructor
+public class MemberExportController {
+
+    private final MemberExportService memberExportService;
+
+    @PostMapping
+    public ResponseEntity<MemberExportJob> submit(@RequestParam(defaultValue = "CSV") MemberExportFormat format) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(memberExportService.submit(format));
+    }
+
+    @PostMapping("/{id}/resume")
+    public ResponseEntity<MemberExportJob> resume(@PathVariable String id) {
+        return memberExportService.resume(id)
+                                        .map(job -> ResponseEntity.status(HttpStatus.ACCEPTED).body(job))
+                                        .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<MemberExportJob> job(@PathVariable String id) {
+        return ResponseEntity.of(memberExportService.find(id));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<MemberExportJob> cancel(@PathVariable String id) {
+        return ResponseEntity.of(memberExportService.cancel(id));
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.demo.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import com.example.demo.bulk.MemberImportReport;
+import com.example.demo.bulk.MemberImportService;
+import com.example.demo.bulk.MemberImportService.Format;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 회원 대량 등록. 본문을 받는 대로 읽어 넣고, 끝나면 건수와 행 오류 목록을 돌려준다.
+ */
+@RestController
+@RequiredArgsConstructor
+public class MemberImportController {
+
+    public static final String CSV = "text/csv";
+
+    private final MemberImportService memberImportService;
+
+    @PostMapping(value = "/members/import", consumes = CSV)
+    public MemberImportReport importCsv(InputStream body) throws IOException {
+        return memberImportService.importMembers(body, Format.CSV);
+    }
+
+    @PostMapping(value = "/members/import", consumes = MemberController.NDJSON)
+    public MemberImportReport importNdjson(InputStream body) throws IOException {
+        return memberImportService.importMembers(body, Format.NDJSON);
+    }
+}
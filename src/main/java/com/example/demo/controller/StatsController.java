@@ -0,0 +1,50 @@
+package com.example.demo.controller;
+
+import java.util.List;
+import java.util.Map;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import com.example.demo.repository.MemberSearchQueryRegistry;
+import com.example.demo.repository.UsernameIndex;
+import com.example.demo.support.CacheStatistics;
+import com.example.demo.support.sql.SqlCaptureListener;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 운영 확인용 내부 통계 조회. 읽기만 한다 (통계 초기화는 actuator 의 sqlcapture).
+ */
+@RestController
+@RequestMapping("/stats")
+@RequiredArgsConstructor
+public class StatsController {
+    
+    private final MemberSearchQueryRegistry memberSearchQueryRegistry;
+    private final CacheStatistics cacheStatistics;
+    private final SqlCaptureListener sqlCaptureListener;
+    private final UsernameIndex usernameIndex;
+    
+    @GetMapping("/query-shapes")
+    public Map<String, Long> queryShapes() {
+        return memberSearchQueryRegistry.stats();
+    }
+    
+    @GetMapping("/username-index")
+    public Map<String, Object> usernameIndex() {
+        return usernameIndex.stats();
+    }
+    
+    @GetMapping("/team-cache")
+    public Map<String, Map<String, Object>> teamCache() {
+        return cacheStatistics.teamCache();
+    }
+    
+    /**
+     * 표본 SQL 모양별 통계 (demo.sql.capture.enabled=true 일 때만 쌓인다)
+     */
+    @GetMapping("/sql")
+    public List<Map<String, Object>> sql(@RequestParam(defaultValue = "20") int top) {
+        return sqlCaptureListener.top(top);
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.demo.controller;
+
+import java.util.List;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import com.example.demo.dto.TeamStatsDto;
+import com.example.demo.stats.TeamStatsService;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/teams")
+@RequiredArgsConstructor
+public class TeamController {
+
+    private final TeamStatsService teamStatsService;
+
+    /**
+     * 팀별 회원 수, 나이 합계/평균/최소/최대. 요약 테이블만 읽는다.
+     * 다시 계산은 관리용 POST /actuator/teamstats (TeamStatsEndpoint).
+     */
+    @GetMapping("/stats")
+    public List<TeamStatsDto> stats() {
+        return teamStatsService.findAll();
+    }
+}
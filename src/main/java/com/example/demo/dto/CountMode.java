@@ -0,0 +1,11 @@
+package com.example.demo.dto;
+
+/**
+ * 검색 페이지의 전체 건수를 구하는 방법.
+ */
+public enum CountMode {
+    /** count 쿼리로 정확히 센다 */
+    EXACT,
+    /** 캐시된 건수나 표본 추정값을 쓰고, 정확한 count 는 백그라운드에서 채운다. 첫 페이지가 count 를 기다리지 않는다. */
+    ESTIMATE
+}
@@ -0,0 +1,36 @@
+package com.example.demo.dto;
+
+import java.util.List;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import lombok.Getter;
+
+/**
+ * 전체 건수가 추정값일 수 있는 검색 페이지.
+ * exact=false 이면 totalElements(와 totalPages)는 추정값이고, 실제 건수는 대략 totalElements ± errorBound (95%) 안에 있다.
+ */
+@Getter
+public class EstimatedPage<T> extends PageImpl<T> {
+
+    private static final long serialVersionUID = 1L;
+
+    public enum Source {
+        /** 이번 요청에서 센 값 (마지막 페이지라 content 로 알 수 있는 경우 포함) */
+        COUNTED,
+        /** 같은 조건, 같은 데이터 버전에서 미리 센 값 */
+        CACHED,
+        /** member_id 구간 표본으로 추정한 값 */
+        SAMPLED
+    }
+
+    private final boolean exact;
+    private final long errorBound;
+    private final Source estimateSource;
+
+    public EstimatedPage(List<T> content, Pageable pageable, long total, boolean exact, long errorBound, Source estimateSource) {
+        super(content, pageable, total);
+        this.exact = exact;
+        this.errorBound = errorBound;
+        this.estimateSource = estimateSource;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.demo.dto;
+
+import java.util.List;
+import java.util.Map;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import lombok.Getter;
+
+/**
+ * 검색 페이지 + 조건 전체(페이지 아님)에 대한 팀별, 나이 구간별 건수.
+ */
+@Getter
+public class FacetedPage<T> extends PageImpl<T> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<TeamFacet> teamFacets;
+
+    /** 구간 이름 → 건수. ex) "~19", "20-29", "50~" */
+    private final Map<String, Long> ageFacets;
+
+    public FacetedPage(List<T> content, Pageable pageable, long total,
+                       List<TeamFacet> teamFacets, Map<String, Long> ageFacets) {
+        super(content, pageable, total);
+        this.teamFacets = teamFacets;
+        this.ageFacets = ageFacets;
+    }
+
+    @Getter
+    public static class TeamFacet {
+
+        /** 팀이 없는 회원이면 null */
+        private final Long teamId;
+        private final String teamName;
+        private final long count;
+
+        public TeamFacet(Long teamId, String teamName, long count) {
+            this.teamId = teamId;
+            this.teamName = teamName;
+            this.count = count;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.demo.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * 검색 조건에 맞는 회원에게 적용할 벌크 변경.
+ * DELETE 는 값이 필요 없고, SET_USERNAME 은 username, ADD_AGE 는 ageDelta 를 쓴다.
+ */
+@Getter
+@NoArgsConstructor
+public class MemberBulkCommand {
+
+    public enum Operation {
+        DELETE, SET_USERNAME, ADD_AGE
+    }
+
+    private MemberSearchCondition condition;
+    private Operation operation;
+    private String username;
+    private Integer ageDelta;
+
+    @Builder
+    public MemberBulkCommand(MemberSearchCondition condition, Operation operation, String username, Integer ageDelta) {
+        this.condition = condition;
+        this.operation = operation;
+        this.username = username;
+        this.ageDelta = ageDelta;
+    }
+
+    public MemberSearchCondition condition() {
+        return condition != null ? condition : new MemberSearchCondition();
+    }
+
+    public void validate() {
+        if (operation == null) {
+            throw new IllegalArgumentException("operation is required");
+        }
+        if (operation == Operation.SET_USERNAME && username == null) {
+            throw new IllegalArgumentException("username is required for SET_USERNAME");
+        }
+        if (operation == Operation.ADD_AGE && ageDelta == null) {
+            throw new IllegalArgumentException("ageDelta is required for ADD_AGE");
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.demo.dto;
+
+import java.util.List;
+import lombok.Getter;
+
+/**
+ * Keyset(seek) 페이징 결과.
+ * nextToken 은 마지막 row 의 (age, memberId) 를 담은 불투명 토큰이며, 다음 페이지가 없으면 null.
+ */
+@Getter
+public class MemberKeysetPage {
+
+    /** 한 페이지 최대 건수. 더 크게 요청하면 이 값으로 줄인다. */
+    public static final int MAX_SIZE = 1000;
+
+    private final List<MemberTeamDto> content;
+    private final String nextToken;
+
+    public MemberKeysetPage(List<MemberTeamDto> content, String nextToken) {
+        this.content = content;
+        this.nextToken = nextToken;
+    }
+
+    public boolean isHasNext() {
+        return nextToken != null;
+    }
+}
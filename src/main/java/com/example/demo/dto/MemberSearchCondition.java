@@ -1,5 +1,7 @@
 package com.example.demo.dto;
 
+import java.util.StringJoiner;
+import org.springframework.util.StringUtils;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -7,17 +9,111 @@ import lombok.NoArgsConstructor;
 @Getter
 @NoArgsConstructor
 public class MemberSearchCondition {
+    
+    /** shape() 비트. 값이 들어 있는 조건의 조합으로 쿼리 모양이 결정된다. */
+    public static final int USERNAME = 1;
+    public static final int TEAM_NAME = 1 << 1;
+    public static final int AGE_GOE = 1 << 2;
+    public static final int AGE_LOE = 1 << 3;
+    public static final int USERNAME_PREFIX = 1 << 4;
+    public static final int USERNAME_CONTAINS = 1 << 5;
+    public static final int SHAPE_COUNT = 1 << 6;
+    
     private String username;
     private String teamName;
     private Integer ageGoe;
     private Integer ageLoe;
     
+    /** username 이 이 값으로 시작 (username 인덱스 범위 조회) */
+    private String usernamePrefix;
+    
+    /** username 에 이 값이 포함 (UsernameIndex 로 후보 id 를 먼저 찾는다) */
+    private String usernameContains;
+    
     @Builder
-    public MemberSearchCondition(String username, String teamName, Integer ageGoe, Integer ageLoe) {
+    public MemberSearchCondition(String username, String teamName, Integer ageGoe, Integer ageLoe,
+                                 String usernamePrefix, String usernameContains) {
         this.username = username;
         this.teamName = teamName;
         this.ageGoe = ageGoe;
         this.ageLoe = ageLoe;
+        this.usernamePrefix = usernamePrefix;
+        this.usernameContains = usernameContains;
+    }
+    
+    /**
+     * 값이 있는 조건의 비트 조합 (0 ~ SHAPE_COUNT - 1).
+     */
+    public int shape() {
+        int shape = 0;
+        if (StringUtils.hasText(username)) {
+            shape |= USERNAME;
+        }
+        if (StringUtils.hasText(teamName)) {
+            shape |= TEAM_NAME;
+        }
+        if (ageGoe != null) {
+            shape |= AGE_GOE;
+        }
+        if (ageLoe != null) {
+            shape |= AGE_LOE;
+        }
+        if (StringUtils.hasText(usernamePrefix)) {
+            shape |= USERNAME_PREFIX;
+        }
+        if (StringUtils.hasText(usernameContains)) {
+            shape |= USERNAME_CONTAINS;
+        }
+        return shape;
+    }
+    
+    /**
+     * shape 를 사람이 읽을 수 있는 이름으로. ex) "username+ageGoe", 조건이 없으면 "none"
+     */
+    public static String shapeName(int shape) {
+        StringJoiner names = new StringJoiner("+");
+        if ((shape & USERNAME) != 0) {
+            names.add("username");
+        }
+        if ((shape & TEAM_NAME) != 0) {
+            names.add("teamName");
+        }
+        if ((shape & AGE_GOE) != 0) {
+            names.add("ageGoe");
+        }
+        if ((shape & AGE_LOE) != 0) {
+            names.add("ageLoe");
+        }
+        if ((shape & USERNAME_PREFIX) != 0) {
+            names.add("usernamePrefix");
+        }
+        if ((shape & USERNAME_CONTAINS) != 0) {
+            names.add("usernameContains");
+        }
+        return names.length() == 0 ? "none" : names.toString();
+    }
+    
+    /**
+     * 같은 검색 결과를 내는 조건이면 같은 문자열.
+     * repository 와 동일하게 빈 문자열은 조건 없음으로 본다. 값은 길이를 앞에 붙여 구분자 충돌을 막는다.
+     */
+    public String normalizedKey() {
+        StringBuilder sb = new StringBuilder();
+        appendText(sb, 'u', username);
+        appendText(sb, 't', teamName);
+        sb.append('g').append(ageGoe == null ? "" : ageGoe).append(';');
+        sb.append('l').append(ageLoe == null ? "" : ageLoe).append(';');
+        appendText(sb, 'p', usernamePrefix);
+        appendText(sb, 'c', usernameContains);
+        return sb.toString();
+    }
+    
+    private static void appendText(StringBuilder sb, char name, String value) {
+        sb.append(name);
+        if (StringUtils.hasText(value)) {
+            sb.append(value.length()).append(':').append(value);
+        }
+        sb.append(';');
     }
     
 }
@@ -0,0 +1,30 @@
+package com.example.demo.dto;
+
+import lombok.Getter;
+
+@Getter
+public class TeamStatsDto {
+
+    private final Long teamId;
+    private final String teamName;
+    private final long memberCount;
+    private final long ageSum;
+    private final Double avgAge;
+    private final Integer minAge;
+    private final Integer maxAge;
+
+    /** true 면 최소/최대가 재계산 전이라 실제보다 넓을 수 있다 */
+    private final boolean stale;
+
+    public TeamStatsDto(Long teamId, String teamName, long memberCount, long ageSum,
+                        Integer minAge, Integer maxAge, boolean stale) {
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.memberCount = memberCount;
+        this.ageSum = ageSum;
+        this.avgAge = memberCount > 0 ? (double) ageSum / memberCount : null;
+        this.minAge = minAge;
+        this.maxAge = maxAge;
+        this.stale = stale;
+    }
+}
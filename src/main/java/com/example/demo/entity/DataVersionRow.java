@@ -0,0 +1,21 @@
+package com.example.demo.entity;
+
+import lombok.*;
+import javax.persistence.*;
+
+/**
+ * 공유 데이터 버전 (DataVersion). id = 1 인 행 하나만 쓴다.
+ * 스키마를 만들기 위한 매핑이고, 읽고 올리는 것은 DataVersion 이 JDBC 로 한다.
+ */
+@Entity
+@Table(name = "data_version")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class DataVersionRow {
+
+    @Id
+    private Integer id;
+    private long epoch;
+    private long version;
+}
@@ -2,8 +2,16 @@ package com.example.demo.entity;
 
 import lombok.*;
 import javax.persistence.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_member_username", columnList = "username"),
+        @Index(name = "idx_member_team_age", columnList = "team_id, age, member_id"), // 팀 필터 + keyset 정렬
+        @Index(name = "idx_member_age", columnList = "age, member_id") // 나이 필터 + keyset 정렬
+})
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
@@ -11,7 +19,9 @@ import javax.persistence.*;
 public class Member {
     
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "member_seq")
+    @GenericGenerator(name = "member_seq", strategy = "com.example.demo.support.PooledSequenceGenerator",
+                    parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "member_seq"))
     @Column(name = "member_id")
     private Long id;
     private String username;
@@ -2,23 +2,40 @@ package com.example.demo.entity;
 
 import lombok.*;
 import javax.persistence.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import com.example.demo.repository.TeamNameResolverListener;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Table(indexes = @Index(name = "idx_team_name", columnList = "name"))
+@EntityListeners(TeamNameResolverListener.class)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@BatchSize(size = Team.BATCH_SIZE) // member.team 프록시를 초기화할 때 아직 로딩 안 된 팀들을 IN 으로 같이 읽는다
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "name"})
 public class Team {
     
+    public static final int BATCH_SIZE = 100;
+    
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "team_seq")
+    @GenericGenerator(name = "team_seq", strategy = "com.example.demo.support.PooledSequenceGenerator",
+                    parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "team_seq"))
     @Column(name = "team_id")
     private Long id;
     private String name;
     
     @OneToMany(mappedBy = "team")
+    @BatchSize(size = BATCH_SIZE) // 여러 팀의 members 를 한 번에 읽는다
     private List<Member> members = new ArrayList<>();
 
     public Team(String name) {
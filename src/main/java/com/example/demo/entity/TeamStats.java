@@ -0,0 +1,25 @@
+package com.example.demo.entity;
+
+import lombok.*;
+import javax.persistence.*;
+
+/**
+ * 팀별 회원 수/나이 합계/최소/최대 요약. 회원 변경 시 같은 트랜잭션에서 증분으로 갱신된다 (TeamStatsEventListener).
+ * 회원이 빠지면서 최소/최대가 바뀌었을 수 있으면 stale 로 표시하고, TeamStatsService 가 해당 팀만 다시 계산한다.
+ */
+@Entity
+@Table(name = "team_stats")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class TeamStats {
+    
+    @Id
+    @Column(name = "team_id")
+    private Long teamId;
+    private long memberCount;
+    private long ageSum;
+    private Integer minAge;
+    private Integer maxAge;
+    private boolean stale;
+}
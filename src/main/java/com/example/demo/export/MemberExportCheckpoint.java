@@ -0,0 +1,65 @@
+package com.example.demo.export;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+import lombok.Getter;
+
+/**
+ * 내보내기 파일 옆에 두는 checkpoint. 파일이 bytes 길이일 때 lastMemberId 까지 rows 행이 들어 있었다는 뜻이다.
+ * 임시 파일에 쓰고 이름을 바꾸므로 중간에 죽어도 이전 checkpoint 가 남는다.
+ */
+@Getter
+class MemberExportCheckpoint {
+
+    private final MemberExportFormat format;
+    private final long lastMemberId;
+    private final long rows;
+    private final long bytes;
+    private final boolean completed;
+
+    MemberExportCheckpoint(MemberExportFormat format, long lastMemberId, long rows, long bytes, boolean completed) {
+        this.format = format;
+        this.lastMemberId = lastMemberId;
+        this.rows = rows;
+        this.bytes = bytes;
+        this.completed = completed;
+    }
+
+    void store(Path path) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("format", format.name());
+        properties.setProperty("lastMemberId", Long.toString(lastMemberId));
+        properties.setProperty("rows", Long.toString(rows));
+        properties.setProperty("bytes", Long.toString(bytes));
+        properties.setProperty("completed", Boolean.toString(completed));
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            properties.store(out, null);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return 없으면 null
+     */
+    static MemberExportCheckpoint load(Path path) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(path)) {
+            properties.load(in);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        return new MemberExportCheckpoint(MemberExportFormat.valueOf(properties.getProperty("format")),
+                                        Long.parseLong(properties.getProperty("lastMemberId")),
+                                        Long.parseLong(properties.getProperty("rows")),
+                                        Long.parseLong(properties.getProperty("bytes")),
+                                        Boolean.parseBoolean(properties.getProperty("completed")));
+    }
+}
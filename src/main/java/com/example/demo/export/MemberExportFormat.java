@@ -0,0 +1,89 @@
+package com.example.demo.export;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 내보내기 파일 형식. 둘 다 gzip 으로 압축한다.
+ * 한 행은 (member_id, username, age, team_id, team_name) 이고 팀이 없으면 team_id, team_name 이 비어 있다.
+ */
+public enum MemberExportFormat {
+
+    /** 첫 줄은 컬럼 이름. 쉼표, 따옴표, 줄바꿈이 들어간 값은 따옴표로 감싼다. */
+    CSV("csv.gz") {
+        @Override
+        void writeHeader(DataOutputStream out) throws IOException {
+            out.write("member_id,username,age,team_id,team_name\n".getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        void writeRow(DataOutputStream out, Object[] row) throws IOException {
+            StringBuilder line = new StringBuilder(64);
+            line.append(row[0]).append(',');
+            appendCsv(line, (String) row[1]);
+            line.append(',').append(row[2]).append(',');
+            if (row[3] != null) {
+                line.append(row[3]);
+            }
+            line.append(',');
+            appendCsv(line, (String) row[4]);
+            line.append('\n');
+            out.write(line.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    },
+
+    /**
+     * 헤더 없이 행마다 long member_id, boolean(username 유무) + UTF username, int age,
+     * boolean(팀 유무) + long team_id + boolean(팀 이름 유무) + UTF team_name. (DataInputStream 으로 읽는다)
+     */
+    BINARY("bin.gz") {
+        @Override
+        void writeHeader(DataOutputStream out) {
+        }
+
+        @Override
+        void writeRow(DataOutputStream out, Object[] row) throws IOException {
+            out.writeLong((Long) row[0]);
+            writeNullableUtf(out, (String) row[1]);
+            out.writeInt((Integer) row[2]);
+            out.writeBoolean(row[3] != null);
+            if (row[3] != null) {
+                out.writeLong((Long) row[3]);
+                writeNullableUtf(out, (String) row[4]);
+            }
+        }
+    };
+
+    private final String extension;
+
+    MemberExportFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    abstract void writeHeader(DataOutputStream out) throws IOException;
+
+    abstract void writeRow(DataOutputStream out, Object[] row) throws IOException;
+
+    private static void appendCsv(StringBuilder line, String value) {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            line.append(value);
+            return;
+        }
+        line.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    private static void writeNullableUtf(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+}
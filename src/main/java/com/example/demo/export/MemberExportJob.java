@@ -0,0 +1,102 @@
+package com.example.demo.export;
+
+import java.time.Duration;
+import java.time.Instant;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+
+/**
+ * 내보내기 작업 하나의 진행 상태.
+ * checkpoint 까지 쓴 내용은 디스크에 남으므로 중단/실패한 작업은 같은 id 로 resume 하면 lastMemberId 다음부터 이어서 쓴다.
+ */
+@Getter
+public class MemberExportJob {
+
+    public enum Status {
+        RUNNING, COMPLETED, FAILED, CANCELLED
+    }
+
+    private final String id;
+    private final MemberExportFormat format;
+    private final String file;
+    /** 이번 실행을 시작한 지점 (resume 이면 이전 checkpoint) */
+    private final long resumedFromMemberId;
+    private final long resumedFromRows;
+    private final Instant startedAt = Instant.now();
+
+    private volatile Status status = Status.RUNNING;
+    private volatile long maxMemberId;
+    private volatile long lastMemberId;
+    private volatile long rows;
+    private volatile long checkpointMemberId;
+    private volatile long checkpointRows;
+    private volatile long checkpointBytes;
+    private volatile Instant finishedAt;
+    private volatile String error;
+    private volatile boolean cancelRequested;
+
+    MemberExportJob(String id, MemberExportFormat format, String file, MemberExportCheckpoint checkpoint) {
+        this.id = id;
+        this.format = format;
+        this.file = file;
+        this.resumedFromMemberId = checkpoint.getLastMemberId();
+        this.resumedFromRows = checkpoint.getRows();
+        this.lastMemberId = checkpoint.getLastMemberId();
+        this.rows = checkpoint.getRows();
+        this.checkpointMemberId = checkpoint.getLastMemberId();
+        this.checkpointRows = checkpoint.getRows();
+        this.checkpointBytes = checkpoint.getBytes();
+    }
+
+    /** member_id 기준 대략적인 진행률 (0.0 ~ 1.0) */
+    public double getProgress() {
+        if (status == Status.COMPLETED) {
+            return 1.0;
+        }
+        return maxMemberId <= 0 ? 0.0 : Math.min(1.0, (double) lastMemberId / maxMemberId);
+    }
+
+    /** 이번 실행의 초당 행 수 */
+    public double getRowsPerSecond() {
+        long millis = Duration.between(startedAt, finishedAt != null ? finishedAt : Instant.now()).toMillis();
+        return millis <= 0 ? 0.0 : (rows - resumedFromRows) * 1000.0 / millis;
+    }
+
+    void start(long maxMemberId) {
+        this.maxMemberId = maxMemberId;
+    }
+
+    void rowWritten(long memberId) {
+        this.lastMemberId = memberId;
+        this.rows++; // 작업 스레드 하나만 쓴다
+    }
+
+    void checkpointed(long bytes) {
+        this.checkpointMemberId = lastMemberId;
+        this.checkpointRows = rows;
+        this.checkpointBytes = bytes;
+    }
+
+    @JsonIgnore
+    MemberExportCheckpoint checkpoint(boolean completed) {
+        return new MemberExportCheckpoint(format, checkpointMemberId, checkpointRows, checkpointBytes, completed);
+    }
+
+    void finish(Status status, String error) {
+        this.status = status;
+        this.error = error;
+        this.finishedAt = Instant.now();
+    }
+
+    void cancel() {
+        this.cancelRequested = true;
+    }
+
+    boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    boolean isDone() {
+        return status != Status.RUNNING;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.demo.export;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 회원 내보내기 작업 설정 (demo.export.*).
+ */
+@Component
+@ConfigurationProperties(prefix = "demo.export")
+@Getter
+@Setter
+public class MemberExportProperties {
+
+    /** 내보낸 파일과 checkpoint 파일을 두는 디렉터리 */
+    private String directory = System.getProperty("java.io.tmpdir") + "/member-export";
+
+    /** JDBC fetch size */
+    private int fetchSize = 1000;
+
+    /** 이 행 수마다 gzip member 를 끝맺고 checkpoint 를 남긴다. 중단되면 최대 이만큼 다시 읽는다. */
+    private int checkpointRows = 50_000;
+
+    /** 동시에 실행할 수 있는 작업 수 */
+    private int threads = 1;
+
+    /** 끝난 작업 상태를 보관하는 개수 */
+    private int retainedJobs = 100;
+}
@@ -0,0 +1,235 @@
+package com.example.demo.export;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import com.example.demo.export.MemberExportJob.Status;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Member + Team 전체를 파일로 내보낸다.
+ * StatelessSession 의 forward-only 커서로 읽으므로 영속성 컨텍스트와 스냅샷이 쌓이지 않는다.
+ * 작업은 별도 스레드에서 돌고, checkpointRows 마다 파일 길이와 마지막 member_id 를 남겨서 중단되면 거기서부터 이어 쓴다.
+ *
+ * checkpoint 구간마다 세션, 트랜잭션, 커서를 새로 연다 (member_id 범위 조회). 긴 내보내기가 트랜잭션과 커넥션을 끝까지 잡고 있지 않는다.
+ * 대신 한 시점의 스냅샷은 아니다. 시작할 때의 max(member_id) 까지를 내보내고, 각 행은 그 구간을 읽을 때의 값이다.
+ */
+@Slf4j
+@Service
+public class MemberExportService {
+
+    private static final String EXPORT_QUERY = "select m.id, m.username, m.age, t.id, t.name"
+                                    + " from Member m left join m.team t"
+                                    + " where m.id > :after and m.id <= :maxId"
+                                    + " order by m.id";
+
+    private final SessionFactory sessionFactory;
+    private final MemberExportProperties properties;
+    private final ExecutorService executor;
+    private final Map<String, MemberExportJob> jobs = new ConcurrentHashMap<>();
+
+    @Autowired
+    public MemberExportService(EntityManagerFactory entityManagerFactory, MemberExportProperties properties) {
+        this(entityManagerFactory, properties,
+             Executors.newFixedThreadPool(properties.getThreads(), new CustomizableThreadFactory("member-export-")));
+    }
+
+    MemberExportService(EntityManagerFactory entityManagerFactory, MemberExportProperties properties, ExecutorService executor) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.properties = properties;
+        this.executor = executor;
+    }
+
+    public MemberExportJob submit(MemberExportFormat format) {
+        String id = UUID.randomUUID().toString();
+        MemberExportCheckpoint checkpoint = new MemberExportCheckpoint(format, 0, 0, 0, false);
+        try {
+            Files.createDirectories(directory());
+            checkpoint.store(checkpointPath(id));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return start(id, checkpoint);
+    }
+
+    /**
+     * 디스크의 checkpoint 부터 이어서 내보낸다. 서버가 재시작된 뒤에도 된다.
+     * 확인과 등록을 jobs.compute 안에서 하므로 같은 id 를 동시에 resume 해도 하나만 시작한다.
+     */
+    public Optional<MemberExportJob> resume(String id) {
+        validateId(id);
+        evictFinishedJobs();
+        MemberExportJob[] resumed = new MemberExportJob[1];
+        jobs.compute(id, (key, running) -> {
+            if (running != null && !running.isDone()) {
+                throw new IllegalStateException("export " + id + " is still running");
+            }
+
+            MemberExportCheckpoint checkpoint;
+            try {
+                checkpoint = MemberExportCheckpoint.load(checkpointPath(id));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (checkpoint == null) {
+                return running;
+            }
+            if (checkpoint.isCompleted()) {
+                throw new IllegalStateException("export " + id + " is already completed");
+            }
+            resumed[0] = newJob(id, checkpoint);
+            return resumed[0];
+        });
+
+        if (resumed[0] == null) {
+            return Optional.empty();
+        }
+        executor.execute(() -> run(resumed[0]));
+        return Optional.of(resumed[0]);
+    }
+
+    public Optional<MemberExportJob> find(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    /**
+     * 지금까지 쓴 행까지 checkpoint 를 남기고 멈춘다. resume 으로 이어서 할 수 있다.
+     */
+    public Optional<MemberExportJob> cancel(String id) {
+        MemberExportJob job = jobs.get(id);
+        if (job != null) {
+            job.cancel();
+        }
+        return Optional.ofNullable(job);
+    }
+
+    private MemberExportJob start(String id, MemberExportCheckpoint checkpoint) {
+        evictFinishedJobs();
+        MemberExportJob job = newJob(id, checkpoint);
+        jobs.put(id, job);
+        executor.execute(() -> run(job));
+        return job;
+    }
+
+    private MemberExportJob newJob(String id, MemberExportCheckpoint checkpoint) {
+        return new MemberExportJob(id, checkpoint.getFormat(), exportPath(id, checkpoint.getFormat()).toString(), checkpoint);
+    }
+
+    private void run(MemberExportJob job) {
+        Path checkpointPath = checkpointPath(job.getId());
+        try (MemberExportWriter writer = new MemberExportWriter(Paths.get(job.getFile()), job.getFormat(), job.getCheckpointBytes())) {
+            long maxId = maxMemberId();
+            job.start(maxId);
+
+            if (job.getCheckpointBytes() == 0) {
+                writer.writeHeader();
+            }
+
+            int segment = properties.getCheckpointRows();
+            int written;
+            do {
+                written = exportSegment(job, writer, maxId, segment);
+                if (written == segment) {
+                    job.checkpointed(writer.checkpoint());
+                    job.checkpoint(false).store(checkpointPath);
+                }
+            } while (written == segment && !job.isCancelRequested());
+
+            boolean cancelled = job.isCancelRequested();
+            job.checkpointed(writer.finish());
+            job.checkpoint(!cancelled).store(checkpointPath);
+            job.finish(cancelled ? Status.CANCELLED : Status.COMPLETED, null);
+        } catch (IOException | RuntimeException e) {
+            log.warn("member export {} failed after member_id {}", job.getId(), job.getCheckpointMemberId(), e);
+            job.finish(Status.FAILED, e.getMessage());
+        }
+    }
+
+    private long maxMemberId() {
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            Transaction tx = session.beginTransaction();
+            Long maxId = session.createQuery("select max(m.id) from Member m", Long.class).uniqueResult();
+            tx.commit();
+            return maxId != null ? maxId : 0;
+        }
+    }
+
+    /**
+     * lastMemberId 다음부터 최대 limit 행을 자기 세션, 트랜잭션, 커서로 읽어서 쓴다. 취소되면 중간에 멈춘다.
+     *
+     * @return 쓴 행 수. limit 보다 작으면 끝까지 읽었거나 취소됐다.
+     */
+    private int exportSegment(MemberExportJob job, MemberExportWriter writer, long maxId, int limit) throws IOException {
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            Transaction tx = session.beginTransaction();
+            int written = 0;
+            try (ScrollableResults rows = session.createQuery(EXPORT_QUERY)
+                                            .setParameter("after", job.getLastMemberId())
+                                            .setParameter("maxId", maxId)
+                                            .setMaxResults(limit)
+                                            .setFetchSize(Math.min(properties.getFetchSize(), limit))
+                                            .setReadOnly(true)
+                                            .scroll(ScrollMode.FORWARD_ONLY)) {
+                while (written < limit && !job.isCancelRequested() && rows.next()) {
+                    Object[] row = rows.get();
+                    writer.writeRow(row);
+                    job.rowWritten((Long) row[0]);
+                    written++;
+                }
+            } catch (IOException | RuntimeException e) {
+                tx.rollback();
+                throw e;
+            }
+            tx.commit();
+            return written;
+        }
+    }
+
+    private void validateId(String id) {
+        if (!UUID.fromString(id).toString().equals(id)) { // 경로에 쓰이므로 형식을 확인한다
+            throw new IllegalArgumentException("invalid export id: " + id);
+        }
+    }
+
+    private Path directory() {
+        return Paths.get(properties.getDirectory());
+    }
+
+    private Path exportPath(String id, MemberExportFormat format) {
+        return directory().resolve("members-" + id + "." + format.getExtension());
+    }
+
+    private Path checkpointPath(String id) {
+        return directory().resolve("members-" + id + ".checkpoint");
+    }
+
+    private void evictFinishedJobs() {
+        if (jobs.size() < properties.getRetainedJobs()) {
+            return;
+        }
+        jobs.values().removeIf(MemberExportJob::isDone);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.demo.export;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
+import org.springframework.util.StreamUtils;
+
+/**
+ * 내보내기 파일을 gzip member 단위로 쓴다.
+ * {@link #checkpoint()} 는 지금까지의 gzip member 를 끝맺고 디스크에 내린 뒤 그 길이를 돌려준다.
+ * 이어 쓸 때는 그 길이로 자르고 새 gzip member 를 붙인다. 이어 붙인 gzip 은 GZIPInputStream, gunzip 으로 한 번에 읽힌다.
+ */
+class MemberExportWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final MemberExportFormat format;
+    private final FileChannel channel;
+    private final BufferedOutputStream file;
+    private DataOutputStream segment;
+
+    /**
+     * @param offset 이전 checkpoint 의 파일 길이. 그 뒤에 쓰다 만 내용은 버린다.
+     */
+    MemberExportWriter(Path path, MemberExportFormat format, long offset) throws IOException {
+        this.format = format;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        this.channel.truncate(offset);
+        this.channel.position(offset);
+        this.file = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+        this.segment = openSegment();
+    }
+
+    void writeHeader() throws IOException {
+        format.writeHeader(segment);
+    }
+
+    void writeRow(Object[] row) throws IOException {
+        format.writeRow(segment, row);
+    }
+
+    long checkpoint() throws IOException {
+        segment.close(); // gzip trailer 까지 쓰지만 파일은 닫지 않는다
+        file.flush();
+        channel.force(false);
+        long length = channel.position();
+        segment = openSegment();
+        return length;
+    }
+
+    /**
+     * 마지막 gzip member 를 끝맺고 파일을 닫는다. 파일 길이를 돌려준다.
+     */
+    long finish() throws IOException {
+        segment.close();
+        file.flush();
+        channel.force(false);
+        long length = channel.position();
+        file.close();
+        return length;
+    }
+
+    /**
+     * 실패했을 때 정리용. 마지막 checkpoint 뒤의 내용은 이어 쓸 때 잘라낸다.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            segment.close();
+        } finally {
+            file.close();
+        }
+    }
+
+    private DataOutputStream openSegment() throws IOException {
+        return new DataOutputStream(new GZIPOutputStream(StreamUtils.nonClosing(file), BUFFER_SIZE));
+    }
+}
@@ -3,6 +3,10 @@ package com.example.demo.repository;
 import java.util.List;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import com.example.demo.dto.EstimatedPage;
+import com.example.demo.dto.FacetedPage;
+import com.example.demo.dto.MemberBulkCommand;
+import com.example.demo.dto.MemberKeysetPage;
 import com.example.demo.dto.MemberSearchCondition;
 import com.example.demo.dto.MemberTeamDto;
 
@@ -16,4 +20,14 @@ public interface CustomMemberRepository {
     List<MemberTeamDto> search(MemberSearchCondition condition);
     Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable);
     Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable);
+    Page<MemberTeamDto> searchPageParallel(MemberSearchCondition condition, Pageable pageable);
+    Page<MemberTeamDto> searchPageWithTotal(MemberSearchCondition condition, Pageable pageable, long total);
+    List<MemberTeamDto> searchCompiled(MemberSearchCondition condition);
+    Page<MemberTeamDto> searchPageCompiled(MemberSearchCondition condition, Pageable pageable);
+    FacetedPage<MemberTeamDto> searchPageFaceted(MemberSearchCondition condition, Pageable pageable);
+    EstimatedPage<MemberTeamDto> searchPageEstimated(MemberSearchCondition condition, Pageable pageable);
+    MemberKeysetPage searchKeyset(MemberSearchCondition condition, String token, int size);
+    List<MemberTeamDto> findMembersByIds(List<Long> ids);
+    long bulkChunk(MemberBulkCommand command, long fromId, long toId);
+    Long findMaxMemberId();
 }
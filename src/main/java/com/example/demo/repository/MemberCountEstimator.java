@@ -0,0 +1,218 @@
+package com.example.demo.repository;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import javax.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.example.demo.dto.EstimatedPage.Source;
+import com.example.demo.dto.MemberSearchCondition;
+import com.example.demo.support.DataVersion;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 검색 조건별 전체 건수 추정.
+ *
+ * 1. 같은 조건(normalizedKey)을 같은 데이터 버전에서 이미 셌으면 그 값 (정확).
+ * 2. 아니면 member_id 범위에서 무작위 구간 몇 개만 세어 비율로 추정하고, 정확한 count 는 백그라운드에서 세어 캐시에 넣는다.
+ *    표본 추정값도 같은 버전 동안 캐시하므로 다음 페이지는 다시 표본을 읽지 않는다.
+ *
+ * 오차 범위는 구간 하나를 관측값 하나로 보고 구간 사이 분산으로 구한 95% t 구간이다. 구간 안의 행은 독립 추출이 아니므로
+ * 조건이 id 순서와 상관 있으면(예: 최근 가입자) 구간마다 비율이 크게 달라지고 그만큼 구간도 넓어진다.
+ * 구간 수가 적으면 t 값이 커지므로 같은 sample-ids 라도 작은 구간을 여러 개 뽑는 편이 좁다.
+ */
+@Slf4j
+@Component
+public class MemberCountEstimator {
+
+    private final DataVersion dataVersion;
+    private final TransactionTemplate readOnlyTx;
+    /** 자유도 1 ~ 30 의 t 분포 97.5% 분위수. 그 이상은 1.96 */
+    private static final double[] T_975 = {
+                                    12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,
+                                    2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086,
+                                    2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042};
+
+    private final ThreadPoolExecutor warmer;
+    private final Set<String> warming = ConcurrentHashMap.newKeySet();
+    private final long sampleIds;
+    private final int windows;
+    private final Cache<String, CountEstimate> cache = Caffeine.newBuilder()
+                                    .maximumSize(10_000)
+                                    .expireAfterWrite(Duration.ofMinutes(10))
+                                    .build();
+
+    /**
+     * @param sampler (fromId, toId) 구간에서 [전체 행 수, 조건에 맞는 행 수]. 구간은 양 끝 포함.
+     */
+    public interface Sampler {
+        long[] count(long fromId, long toId);
+    }
+
+    @Getter
+    public static class CountEstimate {
+        private final long total;
+        private final long errorBound;
+        private final Source source;
+        private final DataVersion.Stamp version;
+
+        CountEstimate(long total, long errorBound, Source source, DataVersion.Stamp version) {
+            this.total = total;
+            this.errorBound = errorBound;
+            this.source = source;
+            this.version = version;
+        }
+
+        public boolean isExact() {
+            return source != Source.SAMPLED;
+        }
+    }
+
+    public MemberCountEstimator(DataVersion dataVersion, PlatformTransactionManager transactionManager,
+                                    @Value("${demo.count-estimate.sample-ids:20000}") long sampleIds,
+                                    @Value("${demo.count-estimate.windows:16}") int windows,
+                                    @Value("${demo.count-estimate.warm-threads:1}") int warmThreads) {
+        this.dataVersion = dataVersion;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.readOnlyTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.sampleIds = sampleIds;
+        this.windows = Math.max(2, windows); // 구간 사이 분산에는 구간이 둘 이상 필요하다
+        this.warmer = new ThreadPoolExecutor(warmThreads, warmThreads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(64),
+                                        new CustomizableThreadFactory("count-warm-"), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * @param minId member_id 최솟값 (테이블이 비어 있으면 null)
+     * @param maxId member_id 최댓값 (테이블이 비어 있으면 null)
+     * @param exactCount 정확한 count. 백그라운드 스레드의 읽기 전용 트랜잭션에서 실행한다.
+     */
+    public CountEstimate estimate(MemberSearchCondition condition, Long minId, Long maxId,
+                                    Sampler sampler, LongSupplier exactCount) {
+        DataVersion.Stamp version = dataVersion.current();
+        String key = condition.normalizedKey();
+        CountEstimate cached = cache.getIfPresent(key);
+        if (cached != null && cached.getVersion().equals(version)) {
+            return cached;
+        }
+
+        if (minId == null || maxId == null) {
+            return new CountEstimate(0, 0, Source.COUNTED, version);
+        }
+
+        long span = maxId - minId + 1;
+        CountEstimate estimate;
+        if (span <= sampleIds) {
+            // 표본이 전체보다 크면 그냥 센다 (id 범위 조회라 표본과 비용이 같다)
+            estimate = new CountEstimate(sampler.count(minId, maxId)[1], 0, Source.COUNTED, version);
+        } else {
+            estimate = sample(sampler, minId, span, version);
+            warm(key, exactCount);
+        }
+        cache.put(key, estimate);
+        return estimate;
+    }
+
+    private CountEstimate sample(Sampler sampler, long minId, long span, DataVersion.Stamp version) {
+        long width = Math.max(1, sampleIds / windows);
+        long sampled = 0;
+        long hits = 0;
+        double[] rates = new double[windows];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < windows; i++) {
+            long from = minId + random.nextLong(span - width + 1);
+            long windowHits = sampler.count(from, from + width - 1)[1];
+            rates[i] = (double) windowHits / width;
+            hits += windowHits;
+            sampled += width;
+        }
+        return new CountEstimate(Math.round((double) hits / sampled * span), errorBound(rates, hits, sampled, span),
+                                        Source.SAMPLED, version);
+    }
+
+    /**
+     * 구간마다 비율(hits / width)을 관측값 하나로 보고 구간 사이 표본 분산으로 구한 95% t 구간 (구간 수 기준 유한 모집단 보정 포함).
+     * 구간들의 비율이 거의 같으면 행 단위 독립 추출 구간({@link #errorBound(long, long, long)})보다 작게 잡지 않는다.
+     */
+    static long errorBound(double[] rates, long hits, long sampled, long span) {
+        int n = rates.length;
+        double mean = 0;
+        for (double rate : rates) {
+            mean += rate;
+        }
+        mean /= n;
+        double squares = 0;
+        for (double rate : rates) {
+            squares += (rate - mean) * (rate - mean);
+        }
+        double variance = squares / (n - 1);
+
+        double windowsInSpan = (double) span * n / sampled;
+        double fpc = windowsInSpan > 1 ? Math.sqrt(Math.max(0, (windowsInSpan - n) / (windowsInSpan - 1))) : 0;
+        long between = (long) Math.ceil(t975(n - 1) * span * Math.sqrt(variance / n) * fpc);
+        return Math.max(between, errorBound(hits, sampled, span));
+    }
+
+    static double t975(int degreesOfFreedom) {
+        return degreesOfFreedom <= T_975.length ? T_975[degreesOfFreedom - 1] : 1.96;
+    }
+
+    /**
+     * 표본 행을 독립 추출로 볼 때 비율 p = hits / sampled 의 95% 구간 (유한 모집단 보정 포함) 을 건수로 바꾼 값.
+     * hits 가 0 이면 정규 근사가 안 맞으므로 3 / sampled (rule of three) 를 쓴다.
+     */
+    static long errorBound(long hits, long sampled, long span) {
+        if (hits == 0) {
+            return (long) Math.ceil(3.0 * span / sampled);
+        }
+        double p = (double) hits / sampled;
+        double fpc = span > 1 ? Math.sqrt((double) (span - sampled) / (span - 1)) : 0;
+        return (long) Math.ceil(1.96 * span * Math.sqrt(p * (1 - p) / sampled) * fpc);
+    }
+
+    /**
+     * 버전과 count 를 같은 트랜잭션(같은 replica)에서 읽어서 그 버전으로 캐시한다. 요청보다 새 버전이면 그 버전이 보일 때부터 쓰인다.
+     */
+    private void warm(String key, LongSupplier exactCount) {
+        if (!warming.add(key)) {
+            return;
+        }
+        try {
+            warmer.execute(() -> {
+                try {
+                    CountEstimate counted = readOnlyTx.execute(status -> {
+                        DataVersion.Stamp version = dataVersion.current();
+                        return new CountEstimate(exactCount.getAsLong(), 0, Source.CACHED, version);
+                    });
+                    cache.asMap().compute(key, (k, current) -> current == null || !current.getVersion().isNewerThan(counted.getVersion())
+                                                    ? counted : current);
+                } catch (RuntimeException e) {
+                    log.warn("background count failed for {}", key, e);
+                } finally {
+                    warming.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            warming.remove(key); // 대기열이 차 있으면 이번에는 건너뛰고 다음 요청이 다시 시도한다
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        warmer.shutdownNow();
+    }
+}
@@ -2,8 +2,11 @@ package com.example.demo.repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 import javax.persistence.EntityManager;
+import org.hibernate.annotations.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 import com.example.demo.dto.MemberSearchCondition;
 import com.example.demo.dto.MemberTeamDto;
@@ -11,6 +14,7 @@ import com.example.demo.dto.QMemberTeamDto;
 import com.example.demo.entity.Member;
 import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.Predicate;
+import com.mysema.commons.lang.CloseableIterator;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import static com.example.demo.entity.QMember.*;
@@ -19,12 +23,19 @@ import static com.example.demo.entity.QTeam.*;
 @Repository
 public class MemberJpaRepository {
 
+    /** 스트리밍 조회 시 JDBC fetch size 이자 영속성 컨텍스트를 비우는 주기 */
+    public static final int STREAM_FETCH_SIZE = 500;
+
     private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final MemberRepositoryMetrics metrics;
+    private final UsernameIndex usernameIndex;
     
-    public MemberJpaRepository(EntityManager em) {
+    public MemberJpaRepository(EntityManager em, MemberRepositoryMetrics metrics, UsernameIndex usernameIndex) {
         this.em = em;
         this.queryFactory = new JPAQueryFactory(em);
+        this.metrics = metrics;
+        this.usernameIndex = usernameIndex;
     }
     
     public void save(Member member) {
@@ -44,6 +55,15 @@ public class MemberJpaRepository {
         return queryFactory.selectFrom(member).fetch();
     }
     
+    /**
+     * team 을 fetch join 해서 회원과 팀을 쿼리 한 번으로 읽는다.
+     */
+    public List<Member> findAllWithTeam() {
+        return queryFactory.selectFrom(member)
+                        .leftJoin(member.team, team).fetchJoin()
+                        .fetch();
+    }
+    
     public List<Member> findByUsername(String username) {
         return em.createQuery("select m from Member m where m.username = :username", Member.class)
                                         .setParameter("username", username).getResultList();
@@ -53,7 +73,9 @@ public class MemberJpaRepository {
         return queryFactory.selectFrom(member).where(member.username.eq(username)).fetch();
     }
     
+    @Transactional(readOnly = true)
     public List<MemberTeamDto> searchByBuilder(MemberSearchCondition condition) {
+        long started = System.nanoTime();
         BooleanBuilder builder = new BooleanBuilder();
         
         if(StringUtils.hasText(condition.getUsername())) {
@@ -72,7 +94,15 @@ public class MemberJpaRepository {
             builder.and(member.age.loe(condition.getAgeLoe()));
         }
         
-        return queryFactory.select(new QMemberTeamDto(
+        if(StringUtils.hasText(condition.getUsernamePrefix())) {
+            builder.and(member.username.startsWith(condition.getUsernamePrefix()));
+        }
+        
+        if(StringUtils.hasText(condition.getUsernameContains())) {
+            builder.and(usernameContains(condition.getUsernameContains()));
+        }
+        
+        List<MemberTeamDto> result = queryFactory.select(new QMemberTeamDto(
                                         member.id.as("memberId"),
                                         member.username,
                                         member.age,
@@ -82,10 +112,15 @@ public class MemberJpaRepository {
                                         .leftJoin(member.team, team)
                                         .where(builder)
                                         .fetch();
+        
+        metrics.record(MemberRepositoryMetrics.Method.SEARCH_BY_BUILDER, condition.shape(), started, result.size());
+        return result;
     }
     
+    @Transactional(readOnly = true)
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return queryFactory.select(new QMemberTeamDto(
+        long started = System.nanoTime();
+        List<MemberTeamDto> result = queryFactory.select(new QMemberTeamDto(
                                         member.id.as("memberId"),
                                         member.username,
                                         member.age,
@@ -97,15 +132,69 @@ public class MemberJpaRepository {
                                                usernameEq(condition.getUsername()),
                                                teamNameEq(condition.getTeamName()),
                                                ageGoe(condition.getAgeGoe()),
-                                               ageLoe(condition.getAgeLoe())
+                                               ageLoe(condition.getAgeLoe()),
+                                               usernamePrefix(condition.getUsernamePrefix()),
+                                               usernameContains(condition.getUsernameContains())
                                                )
                                         .fetch();
+        
+        metrics.record(MemberRepositoryMetrics.Method.SEARCH_BY_WHERE, condition.shape(), started, result.size());
+        return result;
+    }
+    
+    /**
+     * search 와 같은 조건이지만 결과를 List 로 모으지 않고 한 건씩 consumer 에 넘긴다.
+     * 커서(ScrollableResults)를 사용하므로 결과 크기와 무관하게 메모리 사용량이 일정하다.
+     */
+    @Transactional(readOnly = true)
+    public long searchStream(MemberSearchCondition condition, Consumer<MemberTeamDto> consumer) {
+        long count = 0;
+        try (CloseableIterator<MemberTeamDto> it = queryFactory.select(new QMemberTeamDto(
+                                        member.id.as("memberId"),
+                                        member.username,
+                                        member.age,
+                                        team.id.as("teamId"),
+                                        team.name.as("teamName")))
+                                        .from(member)
+                                        .leftJoin(member.team, team)
+                                        .where(
+                                               usernameEq(condition.getUsername()),
+                                               teamNameEq(condition.getTeamName()),
+                                               ageGoe(condition.getAgeGoe()),
+                                               ageLoe(condition.getAgeLoe()),
+                                               usernamePrefix(condition.getUsernamePrefix()),
+                                               usernameContains(condition.getUsernameContains())
+                                               )
+                                        .setHint(QueryHints.FETCH_SIZE, STREAM_FETCH_SIZE)
+                                        .setHint(QueryHints.READ_ONLY, true)
+                                        .iterate()) {
+            while (it.hasNext()) {
+                consumer.accept(it.next());
+                if (++count % STREAM_FETCH_SIZE == 0) {
+                    em.clear();
+                }
+            }
+        }
+        return count;
     }
     
     private BooleanExpression usernameEq(String username) {
         return StringUtils.hasText(username) ? member.username.eq(username) : null;
     }
     
+    private BooleanExpression usernamePrefix(String usernamePrefix) {
+        return StringUtils.hasText(usernamePrefix) ? member.username.startsWith(usernamePrefix) : null;
+    }
+    
+    /**
+     * UsernameIndex 후보로 좁힌 뒤 LIKE 로 확인한다 (MemberRepositoryImpl 과 같은 조건).
+     */
+    private BooleanExpression usernameContains(String usernameContains) {
+        return StringUtils.hasText(usernameContains)
+                        ? MemberRepositoryImpl.usernameContains(usernameContains, usernameIndex.candidates(usernameContains))
+                        : null;
+    }
+    
     private BooleanExpression teamNameEq(String teamName) {
         return StringUtils.hasText(teamName) ? team.name.eq(teamName) : null;
     }
@@ -0,0 +1,50 @@
+package com.example.demo.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import org.springframework.util.StringUtils;
+import com.example.demo.dto.MemberTeamDto;
+import lombok.Getter;
+
+/**
+ * Keyset 페이징 정렬 키 (age asc, member_id asc) 의 마지막 위치.
+ * 클라이언트에게는 base64url 문자열로만 노출한다.
+ */
+@Getter
+public class MemberKeysetCursor {
+
+    private final int age;
+    private final long memberId;
+
+    public MemberKeysetCursor(int age, long memberId) {
+        this.age = age;
+        this.memberId = memberId;
+    }
+
+    public static MemberKeysetCursor of(MemberTeamDto last) {
+        return new MemberKeysetCursor(last.getAge(), last.getMemberId());
+    }
+
+    public String encode() {
+        String raw = age + ":" + memberId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 토큰이 없으면 첫 페이지(null), 형식이 잘못되었으면 IllegalArgumentException.
+     */
+    public static MemberKeysetCursor decode(String token) {
+        if (!StringUtils.hasText(token)) {
+            return null;
+        }
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int sep = raw.indexOf(':');
+            return new MemberKeysetCursor(Integer.parseInt(raw.substring(0, sep)),
+                                            Long.parseLong(raw.substring(sep + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("invalid keyset token: " + token, e);
+        }
+    }
+}
@@ -1,10 +1,22 @@
 package com.example.demo.repository;
 
 import java.util.List;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import com.example.demo.entity.Member;
 
 public interface MemberRepository extends JpaRepository<Member, Long>, CustomMemberRepository {
     
     List<Member> findByUsername(String username);
+    
+    /**
+     * entity graph 로 team 까지 한 쿼리에 읽는다.
+     */
+    @EntityGraph(attributePaths = "team")
+    @Query("select m from Member m")
+    List<Member> findAllWithTeam();
+    
+    @EntityGraph(attributePaths = "team")
+    List<Member> findWithTeamByUsername(String username);
 }
@@ -2,94 +2,199 @@ package com.example.demo.repository;
 
 import static com.example.demo.entity.QMember.member;
 import static com.example.demo.entity.QTeam.team;
+import static com.example.demo.dto.MemberSearchCondition.AGE_GOE;
+import static com.example.demo.dto.MemberSearchCondition.AGE_LOE;
+import static com.example.demo.dto.MemberSearchCondition.TEAM_NAME;
+import static com.example.demo.dto.MemberSearchCondition.USERNAME;
+import static com.example.demo.dto.MemberSearchCondition.USERNAME_CONTAINS;
+import static com.example.demo.dto.MemberSearchCondition.USERNAME_PREFIX;
+import static com.example.demo.repository.MemberRepositoryMetrics.Method.FIND_BY_IDS;
+import static com.example.demo.repository.MemberRepositoryMetrics.Method.SEARCH;
+import static com.example.demo.repository.MemberRepositoryMetrics.Method.SEARCH_COMPILED;
+import static com.example.demo.repository.MemberRepositoryMetrics.Method.SEARCH_KEYSET;
+import static com.example.demo.repository.MemberRepositoryMetrics.Method.SEARCH_PAGE_COMPILED;
+import static com.example.demo.repository.MemberRepositoryMetrics.Method.SEARCH_PAGE_COMPLEX;
+import static com.example.demo.repository.MemberRepositoryMetrics.Method.SEARCH_PAGE_ESTIMATED;
+import static com.example.demo.repository.MemberRepositoryMetrics.Method.SEARCH_PAGE_FACETED;
+import static com.example.demo.repository.MemberRepositoryMetrics.Method.SEARCH_PAGE_PARALLEL;
+import static com.example.demo.repository.MemberRepositoryMetrics.Method.SEARCH_PAGE_SIMPLE;
+import static com.example.demo.repository.MemberRepositoryMetrics.Method.SEARCH_PAGE_WITH_TOTAL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
 import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.TypedQuery;
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.entity.EntityPersister;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.repository.support.PageableExecutionUtils;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
+import com.example.demo.dto.EstimatedPage;
+import com.example.demo.dto.EstimatedPage.Source;
+import com.example.demo.dto.FacetedPage;
+import com.example.demo.dto.FacetedPage.TeamFacet;
+import com.example.demo.dto.MemberBulkCommand;
+import com.example.demo.dto.MemberBulkCommand.Operation;
+import com.example.demo.dto.MemberKeysetPage;
 import com.example.demo.dto.MemberSearchCondition;
 import com.example.demo.dto.MemberTeamDto;
 import com.example.demo.dto.QMemberTeamDto;
 import com.example.demo.entity.Member;
+import com.example.demo.entity.Team;
+import com.example.demo.repository.MemberCountEstimator.CountEstimate;
+import com.example.demo.repository.MemberRepositoryMetrics.Method;
+import com.example.demo.repository.MemberSearchQueryRegistry.CompiledQuery;
+import com.example.demo.support.DataVersion;
 import com.querydsl.core.QueryResults;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.dsl.CaseBuilder;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberExpression;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
 
 public class MemberRepositoryImpl implements CustomMemberRepository {
 
+    /**
+     * findMembersByIds 의 IN 목록 크기. hibernate.query.in_clause_parameter_padding 이 2의 거듭제곱으로 채우므로
+     * 2의 거듭제곱으로 잡아야 패딩 후에도 이 크기를 넘지 않는다.
+     */
+    static final int IN_CHUNK_SIZE = 512;
+    
+    /** searchPageFaceted 나이 구간 경계. [~19, 20-29, 30-39, 40-49, 50~] */
+    static final int[] AGE_FACET_BOUNDS = {20, 30, 40, 50};
+
+    private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final MemberSearchQueryRegistry queryRegistry;
+    private final TeamNameResolver teamNameResolver;
+    private final ParallelCountExecutor parallelCountExecutor;
+    private final MemberRepositoryMetrics metrics;
+    private final DataVersion dataVersion;
+    private final UsernameIndex usernameIndex;
+    private final MemberCountEstimator countEstimator;
     
-    public MemberRepositoryImpl(EntityManager em) {
+    public MemberRepositoryImpl(EntityManager em, MemberSearchQueryRegistry queryRegistry,
+                                    TeamNameResolver teamNameResolver, ParallelCountExecutor parallelCountExecutor,
+                                    MemberRepositoryMetrics metrics, DataVersion dataVersion, UsernameIndex usernameIndex,
+                                    MemberCountEstimator countEstimator) {
+        this.em = em;
         this.queryFactory = new JPAQueryFactory(em);
+        this.queryRegistry = queryRegistry;
+        this.teamNameResolver = teamNameResolver;
+        this.parallelCountExecutor = parallelCountExecutor;
+        this.metrics = metrics;
+        this.dataVersion = dataVersion;
+        this.usernameIndex = usernameIndex;
+        this.countEstimator = countEstimator;
     }
     
+    /**
+     * 팀 이름 조건은 캐시된 team_id 로 바꿔서 건다. count 쿼리는 team 조인 없이 member 만 읽고,
+     * 없는 팀 이름이면 DB 조회 없이 빈 페이지를 돌려준다.
+     * content, count 모두 MemberSearchQueryRegistry 에 미리 만들어 둔 JPQL 을 쓴다 (pageable 정렬은 쓰지 않는다).
+     */
     @Override
+    @Transactional(readOnly = true)
     public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition,
                                     Pageable pageable) {
+        return compiledPage(SEARCH_PAGE_COMPLEX, condition, pageable, Sort.unsorted());
+    }
+    
+    /**
+     * searchPageComplex 와 같은 결과. count 쿼리를 별도 스레드/커넥션에서 content 쿼리와 동시에 실행해
+     * 페이지 지연 시간이 두 쿼리의 합이 아니라 긴 쪽이 되게 한다.
+     * count 생략 규칙은 그대로이며, count 가 필요 없으면 먼저 보낸 count 는 취소(interrupt)한다.
+     * count 가 demo.count-query.timeout 을 넘으면 QueryTimeoutException (다시 세지 않는다).
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Page<MemberTeamDto> searchPageParallel(MemberSearchCondition condition, Pageable pageable) {
         
-        List<MemberTeamDto> content = queryFactory.select(new QMemberTeamDto(
-                                        member.id.as("memberId"),
-                                        member.username,
-                                        member.age,
-                                        team.id.as("teamId"),
-                                        team.name.as("teamName")))
-                                        .from(member)
-                                        .leftJoin(member.team, team)
-                                        .where(
-                                               usernameEq(condition.getUsername()),
-                                               teamNameEq(condition.getTeamName()),
-                                               ageGoe(condition.getAgeGoe()),
-                                               ageLoe(condition.getAgeLoe())
-                                               )
+        long started = System.nanoTime();
+        List<Long> teamIds = resolveTeamIds(condition.getTeamName());
+        Set<Long> usernameIds = resolveUsernameIds(condition.getUsernameContains());
+        if (noMatch(teamIds, usernameIds)) {
+            return emptyPage(SEARCH_PAGE_PARALLEL, condition, started, pageable);
+        }
+        
+        Supplier<Long> count = () -> countQuery(condition, teamIds, usernameIds)
+                                        .setHint(ParallelCountExecutor.QUERY_TIMEOUT_HINT, parallelCountExecutor.queryTimeoutMillis())
+                                        .fetchOne();
+        Future<Long> total = parallelCountExecutor.submit(count);
+        
+        try {
+            List<MemberTeamDto> content = contentQuery(condition, teamIds, usernameIds)
+                                            .offset(pageable.getOffset())
+                                            .limit(pageable.getPageSize())
+                                            .fetch();
+            
+            return page(SEARCH_PAGE_PARALLEL, condition, started, content, pageable,
+                                            () -> parallelCountExecutor.await(total, count));
+        } finally {
+            if (total != null) {
+                total.cancel(true); // 이미 끝났으면 아무 일도 없다
+            }
+        }
+    }
+    
+    /**
+     * 전체 건수를 이미 알고 있을 때(페이지 토큰) content 쿼리만 실행한다.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Page<MemberTeamDto> searchPageWithTotal(MemberSearchCondition condition,
+                                    Pageable pageable, long total) {
+        
+        long started = System.nanoTime();
+        List<Long> teamIds = resolveTeamIds(condition.getTeamName());
+        Set<Long> usernameIds = resolveUsernameIds(condition.getUsernameContains());
+        if (noMatch(teamIds, usernameIds)) {
+            return emptyPage(SEARCH_PAGE_WITH_TOTAL, condition, started, pageable);
+        }
+        
+        List<MemberTeamDto> content = contentQuery(condition, teamIds, usernameIds)
                                         .offset(pageable.getOffset())
                                         .limit(pageable.getPageSize())
                                         .fetch();
         
-            /*long total = queryFactory.select(member)
-            .from(member)
-            .leftJoin(member.team, team)
-            .where(
-                   usernameEq(condition.getUsername()),
-                   teamNameEq(condition.getTeamName()),
-                   ageGoe(condition.getAgeGoe()),
-                   ageLoe(condition.getAgeLoe())
-                   ).fetchCount();*/
-        
-         JPAQuery<Member> countQuery = queryFactory.select(member)
-        .from(member)
-        .leftJoin(member.team, team)
-        .where(
-               usernameEq(condition.getUsername()),
-               teamNameEq(condition.getTeamName()),
-               ageGoe(condition.getAgeGoe()),
-               ageLoe(condition.getAgeLoe())
-               );
-        
-            return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchCount);
-            //return new PageImpl<>(content, pageable, total);
+        metrics.recordPage(SEARCH_PAGE_WITH_TOTAL, condition.shape(), started, content.size(),
+                                        pageable.getPageNumber(), false);
+        return new PageImpl<>(content, pageable, total);
     }
     
     @Override
+    @Transactional(readOnly = true)
     public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition,
                                     Pageable pageable) {
         
-             QueryResults<MemberTeamDto> results = queryFactory.select(new QMemberTeamDto(
-                                        member.id.as("memberId"),
-                                        member.username,
-                                        member.age,
-                                        team.id.as("teamId"),
-                                        team.name.as("teamName")))
-                                        .from(member)
-                                        .leftJoin(member.team, team)
-                                        .where(
-                                               usernameEq(condition.getUsername()),
-                                               teamNameEq(condition.getTeamName()),
-                                               ageGoe(condition.getAgeGoe()),
-                                               ageLoe(condition.getAgeLoe())
-                                               )
+             long started = System.nanoTime();
+             List<Long> teamIds = resolveTeamIds(condition.getTeamName());
+             Set<Long> usernameIds = resolveUsernameIds(condition.getUsernameContains());
+             if (noMatch(teamIds, usernameIds)) {
+                 return emptyPage(SEARCH_PAGE_SIMPLE, condition, started, pageable);
+             }
+             
+             QueryResults<MemberTeamDto> results = contentQuery(condition, teamIds, usernameIds)
                                         .offset(pageable.getOffset())
                                         .limit(pageable.getPageSize())
                                         .fetchResults();
@@ -97,35 +202,580 @@ public class MemberRepositoryImpl implements CustomMemberRepository {
             List<MemberTeamDto> content = results.getResults();
             long total = results.getTotal();
             
+            metrics.recordPage(SEARCH_PAGE_SIMPLE, condition.shape(), started, content.size(),
+                                            pageable.getPageNumber(), true); // fetchResults 는 항상 count 한다
             return new PageImpl<>(content, pageable, total);
     }
     
+    /**
+     * 조건 조합별로 미리 만들어 둔 JPQL 에 값만 바인딩한다 (searchCompiled 와 같은 쿼리).
+     */
     @Override
+    @Transactional(readOnly = true)
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return queryFactory.select(new QMemberTeamDto(
-                                        member.id.as("memberId"),
-                                        member.username,
-                                        member.age,
-                                        team.id.as("teamId"),
-                                        team.name.as("teamName")))
+        return compiledList(SEARCH, condition);
+    }
+    
+    /**
+     * offset 대신 마지막으로 본 (age, member_id) 이후부터 읽는다.
+     * 앞 페이지 row 를 읽고 버리지 않으므로 깊은 페이지도 첫 페이지와 비용이 같다.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public MemberKeysetPage searchKeyset(MemberSearchCondition condition, String token, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size must be positive: " + size);
+        }
+        size = Math.min(size, MemberKeysetPage.MAX_SIZE); // limit(size + 1) 이 넘치지 않게
+        
+        long started = System.nanoTime();
+        MemberKeysetCursor cursor = MemberKeysetCursor.decode(token);
+        
+        List<Long> teamIds = resolveTeamIds(condition.getTeamName());
+        Set<Long> usernameIds = resolveUsernameIds(condition.getUsernameContains());
+        if (noMatch(teamIds, usernameIds)) {
+            metrics.record(SEARCH_KEYSET, condition.shape(), started, 0);
+            return new MemberKeysetPage(Collections.emptyList(), null);
+        }
+        
+        List<MemberTeamDto> rows = contentQuery(condition, teamIds, usernameIds)
+                                        .where(afterCursor(cursor))
+                                        .orderBy(member.age.asc(), member.id.asc())
+                                        .limit(size + 1) // 한 건 더 읽어서 다음 페이지 존재 여부 판단
+                                        .fetch();
+        
+        metrics.record(SEARCH_KEYSET, condition.shape(), started, Math.min(rows.size(), size));
+        if (rows.size() <= size) {
+            return new MemberKeysetPage(rows, null);
+        }
+        
+        List<MemberTeamDto> content = rows.subList(0, size);
+        return new MemberKeysetPage(content, MemberKeysetCursor.of(content.get(size - 1)).encode());
+    }
+    
+    private BooleanExpression afterCursor(MemberKeysetCursor cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        
+        return member.age.gt(cursor.getAge())
+                        .or(member.age.eq(cursor.getAge()).and(member.id.gt(cursor.getMemberId())));
+    }
+    
+    /**
+     * search 와 같은 쿼리. 지표만 따로 남긴다.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<MemberTeamDto> searchCompiled(MemberSearchCondition condition) {
+        return compiledList(SEARCH_COMPILED, condition);
+    }
+    
+    private List<MemberTeamDto> compiledList(Method method, MemberSearchCondition condition) {
+        long started = System.nanoTime();
+        List<Long> teamIds = resolveTeamIds(condition.getTeamName());
+        Set<Long> usernameIds = resolveUsernameIds(condition.getUsernameContains());
+        if (noMatch(teamIds, usernameIds)) {
+            metrics.record(method, condition.shape(), started, 0);
+            return Collections.emptyList();
+        }
+        
+        CompiledQuery compiled = queryRegistry.get(condition.shape(), Sort.unsorted(), usernameChunks(usernameIds));
+        
+        List<MemberTeamDto> result = bind(em.createQuery(compiled.getContentJpql(), MemberTeamDto.class), compiled, condition, teamIds, usernameIds)
+                                        .getResultList();
+        
+        metrics.record(method, condition.shape(), started, result.size());
+        return result;
+    }
+    
+    /**
+     * searchPageComplex 와 같은 페이지지만 전체 건수는 MemberCountEstimator 의 추정값을 쓴다.
+     * 캐시에 없으면 member_id 구간 표본만 세고 정확한 count 는 백그라운드로 넘기므로 count 쿼리를 기다리지 않는다.
+     * 마지막 페이지처럼 content 로 전체 건수를 알 수 있으면 정확한 값을 돌려준다.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public EstimatedPage<MemberTeamDto> searchPageEstimated(MemberSearchCondition condition, Pageable pageable) {
+        long started = System.nanoTime();
+        List<Long> teamIds = resolveTeamIds(condition.getTeamName());
+        Set<Long> usernameIds = resolveUsernameIds(condition.getUsernameContains());
+        if (noMatch(teamIds, usernameIds)) {
+            metrics.recordPage(SEARCH_PAGE_ESTIMATED, condition.shape(), started, 0, pageable.getPageNumber(), false);
+            return new EstimatedPage<>(Collections.emptyList(), pageable, 0, true, 0, Source.COUNTED);
+        }
+        
+        List<MemberTeamDto> content = contentQuery(condition, teamIds, usernameIds)
+                                        .offset(pageable.getOffset())
+                                        .limit(pageable.getPageSize())
+                                        .fetch();
+        
+        long known = knownTotal(content, pageable);
+        if (known >= 0) {
+            metrics.recordPage(SEARCH_PAGE_ESTIMATED, condition.shape(), started, content.size(), pageable.getPageNumber(), false);
+            return new EstimatedPage<>(content, pageable, known, true, 0, Source.COUNTED);
+        }
+        
+        Tuple idRange = queryFactory.select(member.id.min(), member.id.max()).from(member).fetchOne();
+        CountEstimate estimate = countEstimator.estimate(condition, idRange.get(0, Long.class), idRange.get(1, Long.class),
+                                        (fromId, toId) -> sampleCount(condition, teamIds, usernameIds, fromId, toId),
+                                        () -> countQuery(condition, teamIds, usernameIds).fetchOne());
+        
+        metrics.recordPage(SEARCH_PAGE_ESTIMATED, condition.shape(), started, content.size(), pageable.getPageNumber(), false);
+        // 추정값이 이미 본 행 수보다 작을 수는 없다
+        long total = Math.max(estimate.getTotal(), pageable.getOffset() + content.size());
+        return new EstimatedPage<>(content, pageable, total, estimate.isExact(), estimate.getErrorBound(), estimate.getSource());
+    }
+    
+    /**
+     * member_id 가 [fromId, toId] 인 행 수와 그중 조건에 맞는 행 수. PK 범위 조회라 구간 크기만큼만 읽는다.
+     */
+    private long[] sampleCount(MemberSearchCondition condition, List<Long> teamIds, Set<Long> usernameIds,
+                                    long fromId, long toId) {
+        BooleanExpression predicate = Expressions.allOf(predicates(condition, teamIds, usernameIds));
+        Tuple counts = queryFactory.select(member.count(), predicate != null ? countWhen(predicate) : member.count())
+                                        .from(member)
+                                        .where(member.id.between(fromId, toId))
+                                        .fetchOne();
+        Long rows = counts.get(0, Long.class);
+        Long hits = counts.get(1, Long.class);
+        return new long[] {rows != null ? rows : 0, hits != null ? hits : 0};
+    }
+    
+    /**
+     * searchPageComplex 의 페이지 + 팀별/나이 구간별 건수.
+     * count 쿼리 대신 team 으로 group by 하면서 나이 구간을 CASE 합계로 세는 집계 쿼리 하나를 실행한다.
+     * 팀별 건수의 합이 전체 건수이므로 페이지 크기나 facet 수와 상관없이 항상 쿼리 두 번이다.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public FacetedPage<MemberTeamDto> searchPageFaceted(MemberSearchCondition condition, Pageable pageable) {
+        long started = System.nanoTime();
+        List<Long> teamIds = resolveTeamIds(condition.getTeamName());
+        Set<Long> usernameIds = resolveUsernameIds(condition.getUsernameContains());
+        if (noMatch(teamIds, usernameIds)) {
+            metrics.recordPage(SEARCH_PAGE_FACETED, condition.shape(), started, 0, pageable.getPageNumber(), false);
+            return new FacetedPage<>(Collections.emptyList(), pageable, 0, Collections.emptyList(),
+                                            ageFacets(new long[AGE_FACET_BOUNDS.length + 1]));
+        }
+        
+        List<MemberTeamDto> content = contentQuery(condition, teamIds, usernameIds)
+                                        .offset(pageable.getOffset())
+                                        .limit(pageable.getPageSize())
+                                        .fetch();
+        
+        NumberExpression<Long> count = member.count();
+        List<NumberExpression<Long>> buckets = ageBucketSums();
+        List<Expression<?>> select = new ArrayList<>(List.of(team.id, team.name, count));
+        select.addAll(buckets);
+        
+        List<Tuple> rows = queryFactory.select(select.toArray(new Expression<?>[0]))
                                         .from(member)
                                         .leftJoin(member.team, team)
-                                        .where(
-                                               usernameEq(condition.getUsername()),
-                                               teamNameEq(condition.getTeamName()),
-                                               ageGoe(condition.getAgeGoe()),
-                                               ageLoe(condition.getAgeLoe())
-                                               )
+                                        .where(predicates(condition, teamIds, usernameIds))
+                                        .groupBy(team.id, team.name)
+                                        .orderBy(count.desc(), team.id.asc())
                                         .fetch();
-       
+        
+        long total = 0;
+        long[] ageCounts = new long[buckets.size()];
+        List<TeamFacet> teamFacets = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            long teamCount = row.get(count);
+            total += teamCount;
+            teamFacets.add(new TeamFacet(row.get(team.id), row.get(team.name), teamCount));
+            for (int i = 0; i < buckets.size(); i++) {
+                Long bucket = row.get(buckets.get(i));
+                ageCounts[i] += bucket != null ? bucket : 0;
+            }
+        }
+        
+        metrics.recordPage(SEARCH_PAGE_FACETED, condition.shape(), started, content.size(), pageable.getPageNumber(), true);
+        return new FacetedPage<>(content, pageable, total, teamFacets, ageFacets(ageCounts));
+    }
+    
+    /**
+     * 나이 구간마다 sum(case when 구간 then 1 else 0 end)
+     */
+    private static List<NumberExpression<Long>> ageBucketSums() {
+        int last = AGE_FACET_BOUNDS.length - 1;
+        List<NumberExpression<Long>> sums = new ArrayList<>(AGE_FACET_BOUNDS.length + 1);
+        sums.add(countWhen(member.age.lt(AGE_FACET_BOUNDS[0])));
+        for (int i = 1; i <= last; i++) {
+            sums.add(countWhen(member.age.goe(AGE_FACET_BOUNDS[i - 1]).and(member.age.lt(AGE_FACET_BOUNDS[i]))));
+        }
+        sums.add(countWhen(member.age.goe(AGE_FACET_BOUNDS[last])));
+        return sums;
+    }
+    
+    /**
+     * 1, 0 은 바인딩 파라미터가 아닌 리터럴로 넣는다. select 절 CASE 의 파라미터는 DB 가 타입을 추론하지 못할 수 있다.
+     */
+    private static NumberExpression<Long> countWhen(BooleanExpression predicate) {
+        return new CaseBuilder().when(predicate)
+                        .then(Expressions.numberTemplate(Long.class, "1"))
+                        .otherwise(Expressions.numberTemplate(Long.class, "0"))
+                        .sum();
+    }
+    
+    private static Map<String, Long> ageFacets(long[] counts) {
+        int last = AGE_FACET_BOUNDS.length - 1;
+        Map<String, Long> facets = new LinkedHashMap<>();
+        facets.put("~" + (AGE_FACET_BOUNDS[0] - 1), counts[0]);
+        for (int i = 1; i <= last; i++) {
+            facets.put(AGE_FACET_BOUNDS[i - 1] + "-" + (AGE_FACET_BOUNDS[i] - 1), counts[i]);
+        }
+        facets.put(AGE_FACET_BOUNDS[last] + "~", counts[last + 1]);
+        return facets;
+    }
+    
+    /**
+     * searchPageComplex 와 같은 쿼리 + pageable 정렬 지원. count 쿼리 생략 규칙도 동일하다.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Page<MemberTeamDto> searchPageCompiled(MemberSearchCondition condition, Pageable pageable) {
+        return compiledPage(SEARCH_PAGE_COMPILED, condition, pageable, pageable.getSort());
+    }
+    
+    private Page<MemberTeamDto> compiledPage(Method method, MemberSearchCondition condition, Pageable pageable, Sort sort) {
+        long started = System.nanoTime();
+        List<Long> teamIds = resolveTeamIds(condition.getTeamName());
+        Set<Long> usernameIds = resolveUsernameIds(condition.getUsernameContains());
+        if (noMatch(teamIds, usernameIds)) {
+            return emptyPage(method, condition, started, pageable);
+        }
+        
+        CompiledQuery compiled = queryRegistry.get(condition.shape(), sort, usernameChunks(usernameIds));
+        
+        List<MemberTeamDto> content = bind(em.createQuery(compiled.getContentJpql(), MemberTeamDto.class), compiled, condition, teamIds, usernameIds)
+                                        .setFirstResult((int) pageable.getOffset())
+                                        .setMaxResults(pageable.getPageSize())
+                                        .getResultList();
+        
+        TypedQuery<Long> countQuery = bind(em.createQuery(compiled.getCountJpql(), Long.class), compiled, condition, teamIds, usernameIds);
+        
+        return page(method, condition, started, content, pageable, countQuery::getSingleResult);
+    }
+    
+    private static <T> TypedQuery<T> bind(TypedQuery<T> query, CompiledQuery compiled,
+                                    MemberSearchCondition condition, List<Long> teamIds, Set<Long> usernameIds) {
+        if (compiled.has(USERNAME)) {
+            query.setParameter("username", condition.getUsername());
+        }
+        if (compiled.has(TEAM_NAME)) {
+            query.setParameter("teamIds", teamIds);
+        }
+        if (compiled.has(AGE_GOE)) {
+            query.setParameter("ageGoe", condition.getAgeGoe());
+        }
+        if (compiled.has(AGE_LOE)) {
+            query.setParameter("ageLoe", condition.getAgeLoe());
+        }
+        if (compiled.has(USERNAME_PREFIX)) {
+            query.setParameter("usernamePrefix", MemberSearchQueryRegistry.likeEscape(condition.getUsernamePrefix()) + "%");
+        }
+        if (compiled.has(USERNAME_CONTAINS)) {
+            query.setParameter("usernameContains", "%" + MemberSearchQueryRegistry.likeEscape(condition.getUsernameContains()) + "%");
+            List<Long> ids = compiled.getUsernameChunks() > 0 ? new ArrayList<>(usernameIds) : List.of();
+            for (int i = 0; i < compiled.getUsernameChunks(); i++) {
+                query.setParameter("usernameIds" + i, ids.subList(i * IN_CHUNK_SIZE, Math.min(ids.size(), (i + 1) * IN_CHUNK_SIZE)));
+            }
+        }
+        return query;
+    }
+    
+    /**
+     * 요청한 id 순서대로 (중복은 한 번, 없는 id 는 빠진다).
+     * 영속성 컨텍스트에 이미 있는 회원은 쿼리 없이 돌려주고, 나머지만 IN 쿼리로 읽는다.
+     * IN 목록은 IN_CHUNK_SIZE 로 나누고 Hibernate 가 2의 거듭제곱 길이로 채우므로 쿼리 모양이 몇 개로 고정된다.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<MemberTeamDto> findMembersByIds(List<Long> ids) {
+        long started = System.nanoTime();
+        LinkedHashSet<Long> requested = new LinkedHashSet<>(ids);
+        requested.remove(null);
+        
+        Map<Long, MemberTeamDto> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        SharedSessionContractImplementor session = em.unwrap(SharedSessionContractImplementor.class);
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(Member.class);
+        PersistenceContext persistenceContext = session.getPersistenceContext();
+        for (Long id : requested) {
+            MemberTeamDto managed = managed(persistenceContext, session, persister, id);
+            if (managed != null) {
+                found.put(id, managed);
+            } else {
+                missing.add(id);
+            }
+        }
+        
+        for (int from = 0; from < missing.size(); from += IN_CHUNK_SIZE) {
+            List<Long> chunk = missing.subList(from, Math.min(missing.size(), from + IN_CHUNK_SIZE));
+            queryFactory.select(new QMemberTeamDto(
+                                            member.id.as("memberId"),
+                                            member.username,
+                                            member.age,
+                                            team.id.as("teamId"),
+                                            team.name.as("teamName")))
+                                            .from(member)
+                                            .leftJoin(member.team, team)
+                                            .where(member.id.in(chunk))
+                                            .fetch()
+                                            .forEach(dto -> found.put(dto.getMemberId(), dto));
+        }
+        
+        List<MemberTeamDto> result = new ArrayList<>(found.size());
+        for (Long id : requested) {
+            MemberTeamDto dto = found.get(id);
+            if (dto != null) {
+                result.add(dto);
+            }
+        }
+        
+        metrics.record(FIND_BY_IDS, 0, started, result.size());
+        return result;
+    }
+    
+    /**
+     * 영속성 컨텍스트에 있고 team 까지 추가 조회 없이 읽을 수 있을 때만 DTO 로 바꾼다.
+     */
+    private static MemberTeamDto managed(PersistenceContext persistenceContext, SharedSessionContractImplementor session,
+                                    EntityPersister persister, Long id) {
+        Object entity = persistenceContext.getEntity(session.generateEntityKey(id, persister));
+        if (!(entity instanceof Member)) {
+            return null;
+        }
+        
+        EntityEntry entry = persistenceContext.getEntry(entity);
+        if (entry != null && entry.getStatus().isDeletedOrGone()) {
+            return null;
+        }
+        
+        Member found = (Member) entity;
+        Team memberTeam = found.getTeam();
+        if (memberTeam == null) {
+            return new MemberTeamDto(found.getId(), found.getUsername(), found.getAge(), null, null);
+        }
+        if (!Hibernate.isInitialized(memberTeam)) {
+            return null;
+        }
+        return new MemberTeamDto(found.getId(), found.getUsername(), found.getAge(), memberTeam.getId(), memberTeam.getName());
+    }
+    
+    /**
+     * member_id 가 [fromId, toId) 인 범위에서만 벌크 변경을 실행한다. 호출하는 쪽이 범위마다 트랜잭션을 나눈다.
+     * 벌크 JPQL 은 영속성 컨텍스트와 엔티티 리스너를 거치지 않으므로 실행 후 비워서 이전 상태의 엔티티가 남지 않게 하고,
+     * 데이터 버전과 username 색인도 직접 반영한다.
+     */
+    @Override
+    public long bulkChunk(MemberBulkCommand command, long fromId, long toId) {
+        MemberSearchCondition condition = command.condition();
+        List<Long> teamIds = resolveTeamIds(condition.getTeamName());
+        if (noMatch(teamIds, null)) {
+            return 0;
+        }
+        
+        // 색인 후보는 색인이 뒤처져 있으면 대상을 빠뜨릴 수 있으므로 벌크 변경에는 LIKE 만 쓴다
+        BooleanExpression[] where = {
+                member.id.goe(fromId),
+                member.id.lt(toId),
+                Expressions.allOf(predicates(condition, teamIds, null))
+        };
+        
+        em.flush();
+        List<UsernameIndex.Change> usernameChanges = usernameChanges(command, where);
+        long affected;
+        switch (command.getOperation()) {
+            case DELETE:
+                affected = queryFactory.delete(member).where(where).execute();
+                break;
+            case SET_USERNAME:
+                affected = update(where).set(member.username, command.getUsername()).execute();
+                break;
+            case ADD_AGE:
+                affected = update(where).set(member.age, member.age.add(command.getAgeDelta())).execute();
+                break;
+            default:
+                throw new IllegalArgumentException("unsupported operation: " + command.getOperation());
+        }
+        em.clear();
+        if (affected > 0) {
+            dataVersion.bump();
+            usernameIndex.changedAfterCommit(usernameChanges);
+        }
+        return affected;
+    }
+    
+    /**
+     * 벌크 JPQL 은 username 색인 리스너를 거치지 않으므로 바뀔 행의 username 을 먼저 잠가서 읽어 두고 커밋 후에 반영한다.
+     * 읽는 범위는 chunk 하나로 제한된다.
+     */
+    private List<UsernameIndex.Change> usernameChanges(MemberBulkCommand command, BooleanExpression[] where) {
+        if (command.getOperation() != Operation.DELETE
+                                        && command.getOperation() != Operation.SET_USERNAME) {
+            return List.of();
+        }
+        String newUsername = command.getOperation() == Operation.SET_USERNAME ? command.getUsername() : null;
+        List<UsernameIndex.Change> changes = new ArrayList<>();
+        for (Tuple row : queryFactory.select(member.id, member.username)
+                                        .from(member)
+                                        .where(where)
+                                        .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                                        .fetch()) {
+            changes.add(new UsernameIndex.Change(row.get(member.id), row.get(member.username), newUsername));
+        }
+        return changes;
+    }
+    
+    private JPAUpdateClause update(BooleanExpression[] where) {
+        return queryFactory.update(member).where(where);
+    }
+    
+    @Override
+    public Long findMaxMemberId() {
+        return queryFactory.select(member.id.max()).from(member).fetchOne();
     }
     
     private BooleanExpression usernameEq(String username) {
         return StringUtils.hasText(username) ? member.username.eq(username) : null;
     }
     
-    private BooleanExpression teamNameEq(String teamName) {
-        return StringUtils.hasText(teamName) ? team.name.eq(teamName) : null;
+    /**
+     * PageableExecutionUtils 의 count 생략 규칙을 그대로 쓰면서 count 실행 여부를 지표로 남긴다.
+     * count 가 실패(타임아웃 등)해도 지연 시간은 남는다.
+     */
+    private Page<MemberTeamDto> page(Method method, MemberSearchCondition condition, long started,
+                                    List<MemberTeamDto> content, Pageable pageable, LongSupplier total) {
+        long known = knownTotal(content, pageable);
+        try {
+            return new PageImpl<>(content, pageable, known >= 0 ? known : total.getAsLong());
+        } finally {
+            metrics.recordPage(method, condition.shape(), started, content.size(), pageable.getPageNumber(), known < 0);
+        }
+    }
+    
+    /**
+     * PageableExecutionUtils 와 같은 규칙: 첫 페이지이거나 내용이 있는 마지막 페이지처럼 덜 찼으면 전체 건수가 정해진다.
+     *
+     * @return count 없이 정해지는 전체 건수, 정해지지 않으면 -1
+     */
+    private static long knownTotal(List<?> content, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return content.size();
+        }
+        if (content.size() < pageable.getPageSize() && (pageable.getOffset() == 0 || !content.isEmpty())) {
+            return pageable.getOffset() + content.size();
+        }
+        return -1;
+    }
+    
+    private Page<MemberTeamDto> emptyPage(Method method, MemberSearchCondition condition, long started,
+                                    Pageable pageable) {
+        metrics.recordPage(method, condition.shape(), started, 0, pageable.getPageNumber(), false);
+        return Page.empty(pageable);
+    }
+    
+    private JPAQuery<MemberTeamDto> contentQuery(MemberSearchCondition condition, List<Long> teamIds, Set<Long> usernameIds) {
+        return queryFactory.select(new QMemberTeamDto(
+                                member.id.as("memberId"),
+                                member.username,
+                                member.age,
+                                team.id.as("teamId"),
+                                team.name.as("teamName")))
+                        .from(member)
+                        .leftJoin(member.team, team)
+                        .where(predicates(condition, teamIds, usernameIds));
+    }
+    
+    private JPAQuery<Long> countQuery(MemberSearchCondition condition, List<Long> teamIds, Set<Long> usernameIds) {
+        return queryFactory.select(member.count())
+                        .from(member)
+                        .where(predicates(condition, teamIds, usernameIds));
+    }
+    
+    /**
+     * 검색 조건의 where 절. teamIds, usernameIds 는 resolveTeamIds, resolveUsernameIds 결과이고 null 이면 해당 조건을 id 로 좁히지 않는다.
+     */
+    private BooleanExpression[] predicates(MemberSearchCondition condition, List<Long> teamIds, Set<Long> usernameIds) {
+        return new BooleanExpression[] {
+                usernameEq(condition.getUsername()),
+                teamIdIn(teamIds),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe()),
+                usernamePrefix(condition.getUsernamePrefix()),
+                usernameContains(condition.getUsernameContains(), usernameIds)
+        };
+    }
+    
+    /**
+     * 팀 이름 조건이 없으면 null, 있으면 해당 이름의 team_id 목록(없는 이름이면 빈 목록).
+     */
+    private List<Long> resolveTeamIds(String teamName) {
+        return StringUtils.hasText(teamName) ? teamNameResolver.resolve(teamName) : null;
+    }
+    
+    /**
+     * 부분 문자열 조건이 없거나 색인을 쓸 수 없으면 null, 아니면 UsernameIndex 가 찾은 후보 member_id (비어 있으면 결과 없음).
+     */
+    private Set<Long> resolveUsernameIds(String usernameContains) {
+        return StringUtils.hasText(usernameContains) ? usernameIndex.candidates(usernameContains) : null;
+    }
+    
+    private static int usernameChunks(Set<Long> usernameIds) {
+        return usernameIds != null ? MemberSearchQueryRegistry.usernameChunks(usernameIds.size()) : 0;
+    }
+    
+    /**
+     * 팀 이름이나 username 부분 문자열로 이미 결과가 없다고 알 수 있으면 true. DB 를 조회하지 않는다.
+     */
+    private static boolean noMatch(List<Long> teamIds, Set<Long> usernameIds) {
+        return (teamIds != null && teamIds.isEmpty()) || (usernameIds != null && usernameIds.isEmpty());
+    }
+    
+    /**
+     * like 'prefix%' 이므로 username 인덱스 범위 조회가 된다.
+     */
+    private BooleanExpression usernamePrefix(String usernamePrefix) {
+        return StringUtils.hasText(usernamePrefix) ? member.username.startsWith(usernamePrefix) : null;
+    }
+    
+    /**
+     * 색인 후보가 있으면 후보 id 로 좁힌 뒤 LIKE 로 확인하고, 없으면 LIKE 만 건다 (전체 스캔).
+     * 후보가 비어 있으면 결과도 없다 (MemberJpaRepository 도 같이 쓴다).
+     */
+    static BooleanExpression usernameContains(String usernameContains, Set<Long> usernameIds) {
+        if (!StringUtils.hasText(usernameContains)) {
+            return null;
+        }
+        
+        BooleanExpression like = member.username.contains(usernameContains);
+        if (usernameIds == null) {
+            return like;
+        }
+        if (usernameIds.isEmpty()) {
+            return member.id.isNull(); // 항상 거짓
+        }
+        return idIn(usernameIds).and(like);
+    }
+    
+    /**
+     * IN 목록을 IN_CHUNK_SIZE 씩 나눠 OR 로 잇는다. 목록마다 Hibernate 가 2의 거듭제곱 길이로 채우므로 쿼리 모양은 몇 개로 고정된다.
+     * ids 는 비어 있지 않아야 한다.
+     */
+    static BooleanExpression idIn(Collection<Long> ids) {
+        List<Long> list = new ArrayList<>(ids);
+        BooleanExpression in = null;
+        for (int from = 0; from < list.size(); from += IN_CHUNK_SIZE) {
+            BooleanExpression chunk = member.id.in(list.subList(from, Math.min(list.size(), from + IN_CHUNK_SIZE)));
+            in = in == null ? chunk : in.or(chunk);
+        }
+        return in;
+    }
+    
+    private BooleanExpression teamIdIn(List<Long> teamIds) {
+        return teamIds != null ? member.team.id.in(teamIds) : null;
     }
     
     private BooleanExpression ageGoe(Integer ageGoe) {
@@ -0,0 +1,120 @@
+package com.example.demo.repository;
+
+import static com.example.demo.dto.MemberSearchCondition.SHAPE_COUNT;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.springframework.stereotype.Component;
+import com.example.demo.dto.MemberSearchCondition;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * 검색 repository 메서드별, 조건 조합(shape)별 지표.
+ * - member.repository.query : 지연 시간 히스토그램 (method, shape)
+ * - member.repository.rows  : 반환 건수 (method, shape)
+ * - member.repository.count : count 쿼리 실행/생략 (method, result)
+ * - member.repository.page  : 요청 페이지 번호 (method)
+ *
+ * 미터는 (method, shape) 조합이 처음 쓰일 때 한 번만 만들어 배열에 두므로,
+ * 호출마다 태그 문자열을 만들거나 레지스트리를 조회하지 않는다.
+ */
+@Component
+public class MemberRepositoryMetrics {
+
+    public enum Method {
+        SEARCH("search"),
+        SEARCH_BY_BUILDER("searchByBuilder"),
+        SEARCH_BY_WHERE("searchByWhere"), // MemberJpaRepository.search (where 절 메서드 조합)
+        SEARCH_PAGE_SIMPLE("searchPageSimple"),
+        SEARCH_PAGE_COMPLEX("searchPageComplex"),
+        SEARCH_PAGE_PARALLEL("searchPageParallel"),
+        SEARCH_PAGE_WITH_TOTAL("searchPageWithTotal"),
+        SEARCH_COMPILED("searchCompiled"),
+        SEARCH_PAGE_COMPILED("searchPageCompiled"),
+        SEARCH_PAGE_FACETED("searchPageFaceted"),
+        SEARCH_PAGE_ESTIMATED("searchPageEstimated"),
+        SEARCH_KEYSET("searchKeyset"),
+        FIND_BY_IDS("findMembersByIds");
+
+        private final String tag;
+
+        Method(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private static final String[] SHAPE_TAGS = new String[SHAPE_COUNT];
+
+    static {
+        for (int shape = 0; shape < SHAPE_COUNT; shape++) {
+            SHAPE_TAGS[shape] = MemberSearchCondition.shapeName(shape);
+        }
+    }
+
+    private final MeterRegistry registry;
+    private final AtomicReferenceArray<Timer> timers;
+    private final AtomicReferenceArray<DistributionSummary> rows;
+    private final Counter[] countExecuted;
+    private final Counter[] countSkipped;
+    private final DistributionSummary[] pages;
+
+    public MemberRepositoryMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        int methods = Method.values().length;
+        this.timers = new AtomicReferenceArray<>(methods * SHAPE_COUNT);
+        this.rows = new AtomicReferenceArray<>(methods * SHAPE_COUNT);
+        this.countExecuted = new Counter[methods];
+        this.countSkipped = new Counter[methods];
+        this.pages = new DistributionSummary[methods];
+
+        for (Method method : Method.values()) {
+            countExecuted[method.ordinal()] = Counter.builder("member.repository.count")
+                                            .tag("method", method.tag).tag("result", "executed")
+                                            .register(registry);
+            countSkipped[method.ordinal()] = Counter.builder("member.repository.count")
+                                            .tag("method", method.tag).tag("result", "skipped")
+                                            .register(registry);
+            pages[method.ordinal()] = DistributionSummary.builder("member.repository.page")
+                                            .tag("method", method.tag)
+                                            .register(registry);
+        }
+    }
+
+    public void record(Method method, int shape, long startedNanos, int rowCount) {
+        int idx = method.ordinal() * SHAPE_COUNT + shape;
+        timer(idx, method, shape).record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+        rows(idx, method, shape).record(rowCount);
+    }
+
+    public void recordPage(Method method, int shape, long startedNanos, int rowCount,
+                                    int pageNumber, boolean countExecuted) {
+        record(method, shape, startedNanos, rowCount);
+        pages[method.ordinal()].record(pageNumber);
+        (countExecuted ? this.countExecuted : this.countSkipped)[method.ordinal()].increment();
+    }
+
+    private Timer timer(int idx, Method method, int shape) {
+        Timer timer = timers.get(idx);
+        if (timer == null) {
+            timer = Timer.builder("member.repository.query")
+                            .tag("method", method.tag).tag("shape", SHAPE_TAGS[shape])
+                            .publishPercentileHistogram()
+                            .register(registry);
+            timers.set(idx, timer); // 레지스트리가 같은 id 에 같은 미터를 돌려주므로 경합해도 문제 없다
+        }
+        return timer;
+    }
+
+    private DistributionSummary rows(int idx, Method method, int shape) {
+        DistributionSummary summary = rows.get(idx);
+        if (summary == null) {
+            summary = DistributionSummary.builder("member.repository.rows")
+                            .tag("method", method.tag).tag("shape", SHAPE_TAGS[shape])
+                            .register(registry);
+            rows.set(idx, summary);
+        }
+        return summary;
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.demo.repository;
+
+import static com.example.demo.dto.MemberSearchCondition.AGE_GOE;
+import static com.example.demo.dto.MemberSearchCondition.AGE_LOE;
+import static com.example.demo.dto.MemberSearchCondition.TEAM_NAME;
+import static com.example.demo.dto.MemberSearchCondition.USERNAME;
+import static com.example.demo.dto.MemberSearchCondition.USERNAME_CONTAINS;
+import static com.example.demo.dto.MemberSearchCondition.USERNAME_PREFIX;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import lombok.Getter;
+
+/**
+ * 검색 조건 조합(shape) + 정렬 별로 JPQL 을 한 번만 만들어 두고 재사용한다.
+ * 조건 6개로 만들 수 있는 모양은 64가지뿐이므로, 요청마다 Querydsl 표현식 트리를 만들고 JPQL 로 직렬화할 필요가 없다.
+ * 같은 JPQL 문자열이 반복되므로 하이버네이트 쿼리 플랜 캐시도 그대로 적중한다.
+ */
+@Component
+public class MemberSearchQueryRegistry {
+
+    /** 정렬 조합이 무한정 늘어나지 않도록 캐시 크기 제한 */
+    private static final int MAX_ENTRIES = 256;
+
+    /** 정렬 가능한 속성 → JPQL 경로. 그 외 속성은 거부한다. */
+    private static final Map<String, String> SORT_PATHS = Map.of(
+                                    "memberId", "m.id",
+                                    "username", "m.username",
+                                    "age", "m.age",
+                                    "teamName", "t.name");
+
+    /** ignoreCase 정렬(lower)을 허용하는 문자열 속성 */
+    private static final Set<String> TEXT_SORT_PROPERTIES = Set.of("username", "teamName");
+
+    private final Map<ShapeKey, CompiledQuery> cache = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param usernameChunks usernameContains 를 좁힐 UsernameIndex 후보 id 의 IN 목록 수 (:usernameIds0, :usernameIds1, ...).
+     *                       0 이면 LIKE 만 건다. {@link #usernameChunks(int)} 로 구한다.
+     */
+    public CompiledQuery get(int shape, Sort sort, int usernameChunks) {
+        int chunks = (shape & USERNAME_CONTAINS) != 0 ? usernameChunks : 0;
+        ShapeKey key = new ShapeKey(shape, sort, chunks);
+        CompiledQuery compiled = cache.get(key);
+        if (compiled != null) {
+            hits.increment();
+            return compiled;
+        }
+
+        misses.increment();
+        compiled = compile(shape, sort, chunks);
+        if (cache.size() < MAX_ENTRIES) {
+            cache.putIfAbsent(key, compiled);
+        }
+        return compiled;
+    }
+
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("shapes", (long) cache.size());
+        return stats;
+    }
+
+    /**
+     * 후보 id 개수 → IN 목록 수. 목록 하나는 MemberRepositoryImpl.IN_CHUNK_SIZE 까지 담는다.
+     */
+    public static int usernameChunks(int candidates) {
+        return (candidates + MemberRepositoryImpl.IN_CHUNK_SIZE - 1) / MemberRepositoryImpl.IN_CHUNK_SIZE;
+    }
+
+    /**
+     * like 패턴의 %, _, ! 를 escape '!' 기준으로 이스케이프한다.
+     */
+    static String likeEscape(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+    private static CompiledQuery compile(int shape, Sort sort, int usernameChunks) {
+        StringBuilder where = new StringBuilder();
+        appendIf(where, shape, USERNAME, "m.username = :username");
+        appendIf(where, shape, TEAM_NAME, "m.team.id in :teamIds"); // 팀 이름은 TeamNameResolver 로 id 변환 후 바인딩
+        appendIf(where, shape, AGE_GOE, "m.age >= :ageGoe");
+        appendIf(where, shape, AGE_LOE, "m.age <= :ageLoe");
+        appendIf(where, shape, USERNAME_PREFIX, "m.username like :usernamePrefix escape '!'");
+        appendIf(where, shape, USERNAME_CONTAINS, usernameChunks > 0
+                        ? idIn(usernameChunks) + " and m.username like :usernameContains escape '!'"
+                        : "m.username like :usernameContains escape '!'");
+
+        StringBuilder orderBy = new StringBuilder();
+        for (Sort.Order order : sort) {
+            String path = SORT_PATHS.get(order.getProperty());
+            if (path == null) {
+                throw new IllegalArgumentException("unsupported sort property: " + order.getProperty());
+            }
+            orderBy.append(orderBy.length() == 0 ? " order by " : ", ")
+                   .append(orderPath(order, path))
+                   .append(order.isAscending() ? " asc" : " desc")
+                   .append(nulls(order.getNullHandling()));
+        }
+
+        String content = "select new com.example.demo.dto.MemberTeamDto(m.id, m.username, m.age, t.id, t.name)"
+                        + " from Member m left join m.team t" + where + orderBy;
+
+        // 팀 조건도 member.team_id 로 걸리고 to-one left join 은 건수에 영향이 없으므로 조인하지 않는다.
+        String count = "select count(m) from Member m" + where;
+
+        return new CompiledQuery(shape, usernameChunks, content, count);
+    }
+
+    private static String idIn(int chunks) {
+        StringBuilder in = new StringBuilder("(");
+        for (int i = 0; i < chunks; i++) {
+            in.append(i == 0 ? "" : " or ").append("m.id in :usernameIds").append(i);
+        }
+        return in.append(")").toString();
+    }
+
+    /**
+     * ignoreCase 는 문자열 속성에만 lower() 로 건다. 숫자 속성에 요청하면 조용히 무시하지 않고 거부한다.
+     */
+    private static String orderPath(Sort.Order order, String path) {
+        if (!order.isIgnoreCase()) {
+            return path;
+        }
+        if (!TEXT_SORT_PROPERTIES.contains(order.getProperty())) {
+            throw new IllegalArgumentException("ignoreCase is not supported for sort property: " + order.getProperty());
+        }
+        return "lower(" + path + ")";
+    }
+
+    private static String nulls(Sort.NullHandling nullHandling) {
+        switch (nullHandling) {
+            case NULLS_FIRST:
+                return " nulls first";
+            case NULLS_LAST:
+                return " nulls last";
+            default:
+                return "";
+        }
+    }
+
+    private static void appendIf(StringBuilder where, int shape, int bit, String predicate) {
+        if ((shape & bit) != 0) {
+            where.append(where.length() == 0 ? " where " : " and ").append(predicate);
+        }
+    }
+
+    @Getter
+    public static class CompiledQuery {
+
+        private final int shape;
+        private final int usernameChunks;
+        private final String contentJpql;
+        private final String countJpql;
+
+        CompiledQuery(int shape, int usernameChunks, String contentJpql, String countJpql) {
+            this.shape = shape;
+            this.usernameChunks = usernameChunks;
+            this.contentJpql = contentJpql;
+            this.countJpql = countJpql;
+        }
+
+        public boolean has(int bit) {
+            return (shape & bit) != 0;
+        }
+    }
+
+    private static class ShapeKey {
+
+        private final int shape;
+        private final Sort sort;
+        private final int usernameChunks;
+
+        ShapeKey(int shape, Sort sort, int usernameChunks) {
+            this.shape = shape;
+            this.sort = sort;
+            this.usernameChunks = usernameChunks;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ShapeKey)) {
+                return false;
+            }
+            ShapeKey other = (ShapeKey) o;
+            return shape == other.shape && usernameChunks == other.usernameChunks && sort.equals(other.sort);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(shape, sort, usernameChunks);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.demo.repository;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import javax.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.example.demo.support.datasource.ReadRouting;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 페이징 count 쿼리를 content 쿼리와 동시에 실행하기 위한 전용 스레드 풀.
+ * count 는 별도 스레드의 읽기 전용 트랜잭션(별도 커넥션)에서 돈다. 호출 스레드의 {@link ReadRouting} 범위를 이어받아 content 와 같은 DB 를 본다.
+ *
+ * 커넥션 풀 교착을 막기 위해
+ * - 풀 크기는 커넥션 풀보다 작게 잡고 대기 큐를 두지 않는다. 스레드가 모두 바쁘면 호출 스레드에서 직접 count 한다.
+ * - 결과를 timeout 까지만 기다리고, 넘으면 count 를 취소(스레드 interrupt)하고 QueryTimeoutException 을 던진다.
+ *   count 를 다시 실행하지 않는다. 느린 count 를 두 번 돌리면 DB 작업과 커넥션이 두 배가 된다.
+ * - count 쿼리에는 {@link #QUERY_TIMEOUT_HINT} 로 같은 timeout 을 걸어서, interrupt 로 멈추지 않는 드라이버에서도 DB 가 쿼리를 끊게 한다.
+ */
+@Slf4j
+@Component
+public class ParallelCountExecutor {
+
+    public static final String QUERY_TIMEOUT_HINT = "javax.persistence.query.timeout";
+
+    private final ThreadPoolExecutor executor;
+    private final TransactionTemplate readOnlyTx;
+    private final Duration timeout;
+
+    public ParallelCountExecutor(PlatformTransactionManager transactionManager,
+                                    @Value("${demo.count-query.pool-size:4}") int poolSize,
+                                    @Value("${demo.count-query.timeout:2s}") Duration timeout) {
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                                        new SynchronousQueue<>(), new CustomizableThreadFactory("count-query-"),
+                                        new ThreadPoolExecutor.AbortPolicy());
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.readOnlyTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.timeout = timeout;
+    }
+
+    /**
+     * count 쿼리에 거는 {@link #QUERY_TIMEOUT_HINT} 값 (ms). JDBC 는 초 단위라 1초보다 짧게는 걸 수 없다.
+     */
+    public int queryTimeoutMillis() {
+        return (int) Math.max(1000, timeout.toMillis());
+    }
+
+    /**
+     * 스레드가 없으면 null. 이때는 {@link #await} 가 호출 스레드에서 count 한다.
+     * 돌려받은 Future 를 cancel(true) 하면 count 스레드가 interrupt 된다.
+     */
+    public Future<Long> submit(Supplier<Long> countQuery) {
+        try {
+            return executor.submit(ReadRouting.propagate(() -> readOnlyTx.execute(status -> countQuery.get())));
+        } catch (RejectedExecutionException e) {
+            log.debug("count query pool exhausted, counting inline");
+            return null;
+        }
+    }
+
+    /**
+     * @param countQuery future 가 null 일 때(스레드가 없어서 보내지 못함)만 호출 스레드에서 실행한다
+     * @throws QueryTimeoutException timeout 안에 count 가 끝나지 않았다. count 는 취소된다.
+     */
+    public long await(Future<Long> future, Supplier<Long> countQuery) {
+        if (future == null) {
+            return countQuery.get();
+        }
+
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new QueryTimeoutException("count query exceeded " + timeout, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for count query", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
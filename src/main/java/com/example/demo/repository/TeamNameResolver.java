@@ -0,0 +1,53 @@
+package com.example.demo.repository;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import com.example.demo.entity.Team;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * 팀 이름 → team_id 목록 캐시.
+ * 검색 조건의 팀 이름을 member.team_id 조건으로 바꿔서 team 조인 없이 걸 수 있게 한다.
+ * 없는 이름도 빈 목록으로 캐시하므로 팀이 바뀌면 전체를 비운다 (팀 수가 적고 변경이 드물다).
+ */
+@Component
+public class TeamNameResolver {
+
+    private final TeamRepository teamRepository;
+    private final Cache<String, List<Long>> cache = Caffeine.newBuilder()
+                                    .maximumSize(10_000)
+                                    .expireAfterWrite(Duration.ofMinutes(10))
+                                    .build();
+
+    public TeamNameResolver(TeamRepository teamRepository) {
+        this.teamRepository = teamRepository;
+    }
+
+    public List<Long> resolve(String teamName) {
+        return cache.get(teamName, name -> teamRepository.findByName(name).stream()
+                                        .map(Team::getId)
+                                        .collect(Collectors.toUnmodifiableList()));
+    }
+
+    /**
+     * 바로 비우고, 트랜잭션 안이면 끝날 때(커밋/롤백) 한 번 더 비운다.
+     * 트랜잭션 진행 중에 다른 스레드가 이전 상태를 다시 캐시하거나, 롤백된 팀 id 가 남는 것을 막는다.
+     */
+    public void invalidate() {
+        cache.invalidateAll();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidateAll();
+                }
+            });
+        }
+    }
+}
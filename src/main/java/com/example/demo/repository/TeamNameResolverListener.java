@@ -0,0 +1,26 @@
+package com.example.demo.repository;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Team 변경 시 {@link TeamNameResolver} 캐시를 비우는 엔티티 리스너.
+ * 리스너는 EntityManagerFactory 생성 중에 만들어지므로, repository 에 의존하는 resolver 는 나중에 꺼낸다.
+ */
+public class TeamNameResolverListener {
+
+    private final ObjectProvider<TeamNameResolver> teamNameResolver;
+
+    public TeamNameResolverListener(ObjectProvider<TeamNameResolver> teamNameResolver) {
+        this.teamNameResolver = teamNameResolver;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object team) {
+        teamNameResolver.getObject().invalidate();
+    }
+}
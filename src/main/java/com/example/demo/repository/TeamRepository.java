@@ -0,0 +1,24 @@
+package com.example.demo.repository;
+
+import static org.hibernate.annotations.QueryHints.CACHEABLE;
+import static org.hibernate.annotations.QueryHints.CACHE_REGION;
+import java.util.List;
+import javax.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+import com.example.demo.entity.Team;
+
+public interface TeamRepository extends JpaRepository<Team, Long> {
+    
+    String TEAM_BY_NAME_REGION = "team-by-name";
+    
+    /**
+     * 팀 이름 조회. 결과 id 는 쿼리 캐시(team-by-name), Team 은 2차 캐시에서 읽는다.
+     * 팀 이름에 unique 제약이 없어 @NaturalId 대신 쿼리 캐시를 쓴다. team 테이블이 바뀌면 자동 무효화된다.
+     */
+    @QueryHints({
+        @QueryHint(name = CACHEABLE, value = "true"),
+        @QueryHint(name = CACHE_REGION, value = TEAM_BY_NAME_REGION)
+    })
+    List<Team> findByName(String name);
+}
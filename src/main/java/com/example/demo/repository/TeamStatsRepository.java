@@ -0,0 +1,17 @@
+package com.example.demo.repository;
+
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import com.example.demo.dto.TeamStatsDto;
+import com.example.demo.entity.TeamStats;
+
+public interface TeamStatsRepository extends JpaRepository<TeamStats, Long> {
+
+    /**
+     * 팀 수만큼만 읽는다. member 테이블은 보지 않는다.
+     */
+    @Query("select new com.example.demo.dto.TeamStatsDto(s.teamId, t.name, s.memberCount, s.ageSum, s.minAge, s.maxAge, s.stale)"
+                    + " from TeamStats s, Team t where t.id = s.teamId order by s.teamId")
+    List<TeamStatsDto> findAllWithTeamName();
+}
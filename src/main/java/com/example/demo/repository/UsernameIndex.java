@@ -0,0 +1,423 @@
+package com.example.demo.repository;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * username 부분 문자열 검색용 trigram 색인 (trigram → member_id 목록).
+ * 검색어의 trigram 들이 모두 들어 있는 회원만 후보로 돌려주고, 실제 포함 여부는 DB 에서 후보 id 에 한해 LIKE 로 확인한다.
+ * 후보에서 빠진 회원은 찾을 수 없으므로 색인이 커밋된 데이터보다 뒤처질 수 있는 동안에는 후보를 주지 않는다.
+ *
+ * - 기동 후 member 를 한 번 읽어서 만들고, 이후 Member insert/update/delete 를 커밋 후에 반영한다 (UsernameIndexListener).
+ * - 벌크 JPQL/JDBC 변경은 바꾼 행을 {@link #changedAfterCommit} 로 넘겨 같은 방식으로 반영한다.
+ *   무엇을 바꿨는지 모르는 적재(시드 데이터)만 {@link #beginBulkChange()} / {@link #endBulkChange()} 로 감싸고 다시 만든다.
+ * - 만들기가 실패하면 retry-delay 뒤에 다시 시도하고, 성공할 때까지 색인을 쓰지 않는다.
+ * - 만들어지기 전이거나 다시 만드는 중, 검색어가 3자 미만, 후보가 max-candidates 를 넘으면 null 을 돌려주고 호출한 쪽은 LIKE 로 찾는다.
+ *   후보는 IN_CHUNK_SIZE 씩 나눈 IN 목록으로 묶이므로(MemberRepositoryImpl.idIn) max-candidates 는 IN 목록 하나보다 클 수 있다.
+ * - 커밋된 데이터 기준이므로 현재 트랜잭션에서 아직 커밋하지 않은 회원은 부분 문자열 검색에 나오지 않는다.
+ * - 다시 만들 때 member_id 순서로 읽어 trigram 마다 정렬된 long[] 로 두고, 그 뒤의 변경만 trigram 별 추가/삭제 집합으로 둔다.
+ *   변경이 max-delta 를 넘으면 다시 만든다. 노드마다 따로 가진다.
+ */
+@Slf4j
+@Component
+public class UsernameIndex {
+
+    static final int GRAM = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final int maxCandidates;
+    private final long maxDelta;
+    private final Duration retryDelay;
+    private final ScheduledExecutorService rebuildExecutor =
+                                    Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("username-index-"));
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+    /** 예약됐거나 실행 중인 다시 만들기 수 */
+    private final AtomicInteger pendingRebuilds = new AtomicInteger();
+    private final AtomicInteger bulkChanges = new AtomicInteger();
+
+    private volatile Postings current;
+
+    /** 마지막 다시 만들기가 실패했다. current 가 커밋된 데이터보다 뒤처져 있을 수 있다. */
+    private volatile boolean failed;
+
+    /** 다시 만드는 중인 색인. 그동안 들어온 변경은 양쪽에 반영한다. */
+    private volatile Postings building;
+
+    public UsernameIndex(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory,
+                         @Value("${demo.username-index.max-candidates:8192}") int maxCandidates,
+                         @Value("${demo.username-index.max-delta:100000}") long maxDelta,
+                         @Value("${demo.username-index.retry-delay:30s}") Duration retryDelay) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+        this.maxCandidates = maxCandidates;
+        this.maxDelta = maxDelta;
+        this.retryDelay = retryDelay;
+    }
+
+    @PostConstruct
+    public void registerListener() {
+        UsernameIndexListener listener = new UsernameIndexListener(this);
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                                        .getServiceRegistry()
+                                        .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, listener);
+        registry.appendListeners(EventType.POST_UPDATE, listener);
+        registry.appendListeners(EventType.POST_DELETE, listener);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildAsync() {
+        if (rebuildQueued.compareAndSet(false, true)) {
+            pendingRebuilds.incrementAndGet();
+            rebuildExecutor.execute(() -> {
+                // 읽기 시작 전에 풀어야 이후 변경이 다음 다시 만들기를 예약한다
+                rebuildQueued.set(false);
+                try {
+                    rebuild();
+                } finally {
+                    pendingRebuilds.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    /**
+     * 무엇을 바꾸는지 모르는 채로 member 를 바꾸기 전에 호출한다. endBulkChange 뒤 다시 만들 때까지 색인을 쓰지 않는다.
+     * 바꾼 행을 알면 {@link #changedAfterCommit} 를 쓴다.
+     */
+    public void beginBulkChange() {
+        bulkChanges.incrementAndGet();
+    }
+
+    /**
+     * 바뀐 내용을 반영하도록 다시 만든다. 다 만들 때까지는 계속 LIKE 로 찾는다.
+     */
+    public void endBulkChange() {
+        // 다시 만들기를 먼저 예약해야 카운터가 0 이 되는 순간에도 예전 색인을 쓰지 않는다
+        rebuildAsync();
+        bulkChanges.decrementAndGet();
+    }
+
+    /**
+     * member 를 member_id 순서로 읽어 새 색인을 만들고 다 되면 바꿔 끼운다.
+     */
+    synchronized void rebuild() {
+        long started = System.nanoTime();
+        Postings next = new Postings();
+        building = next;
+        try {
+            Map<String, LongList> lists = new HashMap<>();
+            long[] rows = new long[1];
+            jdbcTemplate.query("select member_id, username from member order by member_id", rs -> {
+                long id = rs.getLong(1);
+                String username = rs.getString(2);
+                if (username != null) {
+                    for (String gram : grams(username)) {
+                        lists.computeIfAbsent(gram, g -> new LongList()).add(id);
+                    }
+                }
+                rows[0]++;
+            });
+            Map<String, long[]> base = new HashMap<>(lists.size() * 4 / 3 + 1);
+            lists.forEach((gram, list) -> base.put(gram, list.toArray()));
+            next.base = base;
+            current = next;
+            failed = false;
+            log.info("username index built: {} members, {} trigrams in {} ms", rows[0], base.size(),
+                                            (System.nanoTime() - started) / 1_000_000);
+        } catch (RuntimeException e) {
+            failed = true;
+            log.warn("username index build failed, substring search falls back to LIKE until retry in {}", retryDelay, e);
+            scheduleRetry();
+        } finally {
+            building = null;
+        }
+    }
+
+    private void scheduleRetry() {
+        if (!rebuildExecutor.isShutdown()) {
+            rebuildExecutor.schedule(this::rebuildAsync, retryDelay.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 검색어를 포함할 수 있는 member_id (id 순서). null 이면 색인을 쓸 수 없다는 뜻이다.
+     */
+    public Set<Long> candidates(String substring) {
+        Postings postings = current;
+        if (postings == null || !isFresh() || substring == null || substring.length() < GRAM) {
+            return null;
+        }
+
+        Set<String> grams = grams(substring);
+        String smallest = null;
+        long smallestSize = Long.MAX_VALUE;
+        for (String gram : grams) {
+            long size = postings.size(gram);
+            if (size == 0) {
+                return Set.of();
+            }
+            if (size < smallestSize) {
+                smallest = gram;
+                smallestSize = size;
+            }
+        }
+
+        Set<Long> result = new TreeSet<>();
+        long[] base = postings.base.get(smallest);
+        if (base != null) {
+            for (long id : base) {
+                if (postings.containsAll(grams, id) && result.add(id) && result.size() > maxCandidates) {
+                    return null;
+                }
+            }
+        }
+        Delta delta = postings.deltas.get(smallest);
+        if (delta != null) {
+            for (Long id : delta.added) {
+                if (postings.containsAll(grams, id) && result.add(id) && result.size() > maxCandidates) {
+                    return null;
+                }
+            }
+        }
+        return result;
+    }
+
+    public boolean isReady() {
+        return current != null;
+    }
+
+    /** 만들어져 있고, 마지막 만들기가 성공했고, 다시 만드는 중이 아니고, 벌크 변경 중이 아니다 */
+    boolean isFresh() {
+        return !failed && pendingRebuilds.get() == 0 && building == null && bulkChanges.get() == 0;
+    }
+
+    public Map<String, Object> stats() {
+        Postings postings = current;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("ready", postings != null);
+        stats.put("fresh", postings != null && isFresh());
+        stats.put("failed", failed);
+        stats.put("trigrams", postings != null ? postings.base.size() : 0);
+        stats.put("postings", postings != null ? postings.baseSize() : 0);
+        stats.put("delta", postings != null ? postings.deltaSize.get() : 0);
+        stats.put("rebuilding", building != null);
+        stats.put("bulkChanges", bulkChanges.get());
+        return stats;
+    }
+
+    /** 커밋된 변경 반영 */
+    void changed(Long memberId, String oldUsername, String newUsername) {
+        Postings postings = current;
+        if (postings != null) {
+            postings.apply(memberId, oldUsername, newUsername);
+        }
+        Postings next = building;
+        if (next != null) {
+            next.apply(memberId, oldUsername, newUsername);
+        }
+        if (postings != null && postings.deltaSize.get() > maxDelta) {
+            rebuildAsync();
+        }
+    }
+
+    /**
+     * 리스너를 거치지 않은 변경(벌크 JPQL, JDBC insert)을 현재 트랜잭션이 커밋된 뒤에 반영한다. 롤백되면 반영하지 않는다.
+     * 트랜잭션 밖이면 바로 반영한다.
+     */
+    public void changedAfterCommit(List<Change> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(changes);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(changes);
+            }
+        });
+    }
+
+    private void apply(List<Change> changes) {
+        for (Change change : changes) {
+            changed(change.getMemberId(), change.getOldUsername(), change.getNewUsername());
+        }
+    }
+
+    static Set<String> grams(String value) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= value.length(); i++) {
+            grams.add(value.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    /**
+     * 리스너를 거치지 않은 한 행의 username 변경. insert 는 oldUsername, delete 는 newUsername 이 null 이다.
+     */
+    @Getter
+    public static class Change {
+
+        private final Long memberId;
+        private final String oldUsername;
+        private final String newUsername;
+
+        public Change(Long memberId, String oldUsername, String newUsername) {
+            this.memberId = memberId;
+            this.oldUsername = oldUsername;
+            this.newUsername = newUsername;
+        }
+    }
+
+    /**
+     * 다시 만들 때 읽은 정렬된 member_id 배열(base) + 그 뒤의 변경(deltas).
+     * trigram 에 id 가 있다 = delta.added 에 있거나, base 에 있고 delta.removed 에 없다.
+     */
+    static class Postings {
+        volatile Map<String, long[]> base = Map.of();
+        final Map<String, Delta> deltas = new ConcurrentHashMap<>();
+        final AtomicLong deltaSize = new AtomicLong();
+
+        void apply(Long memberId, String oldUsername, String newUsername) {
+            Set<String> oldGrams = oldUsername != null ? grams(oldUsername) : Set.of();
+            Set<String> newGrams = newUsername != null ? grams(newUsername) : Set.of();
+            for (String gram : oldGrams) {
+                if (!newGrams.contains(gram)) {
+                    update(gram, memberId, false);
+                }
+            }
+            for (String gram : newGrams) {
+                if (!oldGrams.contains(gram)) {
+                    update(gram, memberId, true);
+                }
+            }
+        }
+
+        /**
+         * 집합 변경은 모두 compute 안에서 한다. 빈 Delta 를 지우는 것과 다른 스레드의 추가가 엇갈려서 추가가 사라지는 일이 없다.
+         */
+        private void update(String gram, Long memberId, boolean add) {
+            deltas.compute(gram, (g, delta) -> {
+                Delta d = delta != null ? delta : new Delta();
+                long change = add ? d.add(memberId) : d.remove(memberId);
+                deltaSize.addAndGet(change);
+                return d.isEmpty() ? null : d;
+            });
+        }
+
+        long size(String gram) {
+            long[] ids = base.get(gram);
+            Delta delta = deltas.get(gram);
+            return (ids != null ? ids.length : 0) + (delta != null ? delta.added.size() : 0);
+        }
+
+        boolean contains(String gram, long id) {
+            Delta delta = deltas.get(gram);
+            if (delta != null && delta.added.contains(id)) {
+                return true;
+            }
+            long[] ids = base.get(gram);
+            return ids != null && Arrays.binarySearch(ids, id) >= 0 && (delta == null || !delta.removed.contains(id));
+        }
+
+        boolean containsAll(Set<String> grams, long id) {
+            for (String gram : grams) {
+                if (!contains(gram, id)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        long baseSize() {
+            long size = 0;
+            for (long[] ids : base.values()) {
+                size += ids.length;
+            }
+            return size;
+        }
+    }
+
+    /**
+     * base 이후 trigram 하나의 변경. compute 안에서만 바꾸고 읽기는 락 없이 한다.
+     * removed 는 base 에 있을 수 있는 id 를 가린다. base 에 없던 id 가 들어가도 결과에는 영향이 없다.
+     */
+    static class Delta {
+        final Set<Long> added = ConcurrentHashMap.newKeySet();
+        final Set<Long> removed = ConcurrentHashMap.newKeySet();
+
+        /** @return delta 크기 변화 */
+        long add(Long id) {
+            if (removed.remove(id)) {
+                added.add(id); // base 에 없던 id 일 수도 있으므로 추가로도 남긴다
+                return 0;
+            }
+            return added.add(id) ? 1 : 0;
+        }
+
+        long remove(Long id) {
+            long change = added.remove(id) ? -1 : 0;
+            return removed.add(id) ? change + 1 : change;
+        }
+
+        boolean isEmpty() {
+            return added.isEmpty() && removed.isEmpty();
+        }
+    }
+
+    /** 다시 만들 때 trigram 별로 id 를 모으는 늘어나는 long 배열 */
+    private static class LongList {
+        private long[] values = new long[4];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.demo.repository;
+
+import java.util.Objects;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.engine.spi.ActionQueue;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import com.example.demo.entity.Member;
+
+/**
+ * Member username 변경을 커밋 후에 {@link UsernameIndex} 에 반영한다. 롤백되면 반영하지 않는다.
+ */
+class UsernameIndexListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final UsernameIndex usernameIndex;
+
+    UsernameIndexListener(UsernameIndex usernameIndex) {
+        this.usernameIndex = usernameIndex;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            afterCommit(event.getSession().getActionQueue(), (Long) event.getId(),
+                                            null, username(event.getPersister(), event.getState()));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Member)) {
+            return;
+        }
+
+        String newUsername = username(event.getPersister(), event.getState());
+        String oldUsername = event.getOldState() != null ? username(event.getPersister(), event.getOldState()) : null;
+        if (event.getOldState() != null && Objects.equals(oldUsername, newUsername)) {
+            return;
+        }
+        // 이전 값을 모르면 새 값만 넣는다. 남은 이전 trigram 은 후보만 늘린다.
+        afterCommit(event.getSession().getActionQueue(), (Long) event.getId(), oldUsername, newUsername);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            afterCommit(event.getSession().getActionQueue(), (Long) event.getId(),
+                                            username(event.getPersister(), event.getDeletedState()), null);
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private void afterCommit(ActionQueue actionQueue, Long memberId, String oldUsername, String newUsername) {
+        actionQueue.registerProcess((AfterTransactionCompletionProcess) (success, session) -> {
+            if (success) {
+                usernameIndex.changed(memberId, oldUsername, newUsername);
+            }
+        });
+    }
+
+    private static String username(EntityPersister persister, Object[] state) {
+        return (String) state[persister.getPropertyIndex("username")];
+    }
+}
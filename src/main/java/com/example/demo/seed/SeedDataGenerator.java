@@ -0,0 +1,187 @@
+package com.example.demo.seed;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.example.demo.repository.TeamNameResolver;
+import com.example.demo.repository.UsernameIndex;
+import com.example.demo.stats.TeamStatsService;
+import com.example.demo.support.DataVersion;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 대량 테스트 데이터 생성기.
+ * 엔티티 단위 em.persist 대신 JDBC batch insert 로 id 순서대로 넣고, batch 마다 커밋한다.
+ * id 는 엔티티 시퀀스에서 한 번에 범위를 잡아 두고 chunk 별로 겹치지 않게 나눠 쓰므로 여러 스레드로 나눠 넣을 수 있다.
+ * 각 chunk 는 (seed, chunk 번호)로 난수를 만들기 때문에 스레드 수가 달라도 결과가 같다.
+ */
+@Slf4j
+@Component
+public class SeedDataGenerator {
+
+    private static final String INSERT_TEAM = "insert into team (team_id, name) values (?, ?)";
+    private static final String INSERT_MEMBER = "insert into member (member_id, username, age, team_id) values (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DataVersion dataVersion;
+    private final TeamNameResolver teamNameResolver;
+    private final TeamStatsService teamStatsService;
+    private final UsernameIndex usernameIndex;
+
+    public SeedDataGenerator(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                    DataVersion dataVersion, TeamNameResolver teamNameResolver,
+                                    TeamStatsService teamStatsService, UsernameIndex usernameIndex) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.dataVersion = dataVersion;
+        this.teamNameResolver = teamNameResolver;
+        this.teamStatsService = teamStatsService;
+        this.usernameIndex = usernameIndex;
+    }
+
+    public void generate(SeedProperties props) {
+        long started = System.nanoTime();
+        usernameIndex.beginBulkChange(); // username 색인도 JDBC insert 를 모른다
+        try {
+            insertAll(props);
+        } finally {
+            usernameIndex.endBulkChange();
+        }
+        dataVersion.bump();
+        log.info("seeded {} teams, {} members in {} ms", props.getTeams(), props.getMembers(),
+                                        (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private void insertAll(SeedProperties props) {
+        long firstTeamId = reserveIds("team_seq", props.getTeams());
+        long firstMemberId = reserveIds("member_seq", props.getMembers());
+
+        insertTeams(firstTeamId, props);
+        teamNameResolver.invalidate(); // JDBC 로 넣었으므로 엔티티 리스너가 동작하지 않는다
+
+        double[] teamCumulative = zipfCumulative(props.getTeams(), props.getTeamSkew());
+        long chunks = (props.getMembers() + props.getBatchSize() - 1) / props.getBatchSize();
+        AtomicLong nextChunk = new AtomicLong();
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, props.getThreads()));
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < Math.max(1, props.getThreads()); i++) {
+                workers.add(executor.submit(() -> {
+                    long chunk;
+                    while ((chunk = nextChunk.getAndIncrement()) < chunks) {
+                        insertMemberChunk(chunk, firstTeamId, firstMemberId, teamCumulative, props);
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("seed interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("seed failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        teamStatsService.rebuild(); // team_stats 도 JDBC insert 를 모른다
+    }
+
+    /**
+     * 엔티티 시퀀스에서 count 개 id 를 한 번에 확보하고, 시퀀스를 그 다음 블록 시작으로 옮긴다.
+     * pooled-lo 에서는 nextval 값부터 increment 만큼이 호출한 쪽 소유이므로 increment 단위로 맞춘다.
+     */
+    private long reserveIds(String sequence, long count) {
+        Long increment = jdbcTemplate.queryForObject(
+                                        "select increment from information_schema.sequences where lower(sequence_name) = ?",
+                                        Long.class, sequence);
+        Long first = jdbcTemplate.queryForObject("select next value for " + sequence, Long.class);
+        long blocks = Math.max(1, (count + increment - 1) / increment);
+        jdbcTemplate.execute("alter sequence " + sequence + " restart with " + (first + blocks * increment));
+        return first;
+    }
+
+    private void insertTeams(long firstId, SeedProperties props) {
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_TEAM,
+                                        new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setLong(1, firstId + i);
+                ps.setString(2, teamName(i));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return props.getTeams();
+            }
+        }));
+    }
+
+    private void insertMemberChunk(long chunk, long firstTeamId, long firstMemberId,
+                                    double[] teamCumulative, SeedProperties props) {
+        long from = chunk * props.getBatchSize();
+        int size = (int) Math.min(props.getBatchSize(), props.getMembers() - from);
+        Random random = new Random(props.getSeed() * 1_000_003L + chunk);
+
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_MEMBER,
+                                        new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                long id = firstMemberId + from + i;
+                ps.setLong(1, id);
+                ps.setString(2, "member" + (from + i));
+                ps.setInt(3, age(random, props));
+                ps.setLong(4, firstTeamId + team(random, teamCumulative));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return size;
+            }
+        }));
+    }
+
+    /**
+     * 기본 설정(팀 2개)에서 예전 데이터처럼 teamA, teamB 가 되도록 알파벳을 먼저 쓴다.
+     */
+    static String teamName(int index) {
+        return index < 26 ? "team" + (char) ('A' + index) : "team" + (index + 1);
+    }
+
+    private static int age(Random random, SeedProperties props) {
+        long age = Math.round(props.getAgeMean() + props.getAgeStdDev() * random.nextGaussian());
+        return (int) Math.max(1, Math.min(99, age));
+    }
+
+    private static int team(Random random, double[] cumulative) {
+        double u = random.nextDouble() * cumulative[cumulative.length - 1];
+        int idx = Arrays.binarySearch(cumulative, u);
+        return idx >= 0 ? idx : Math.min(-idx - 1, cumulative.length - 1);
+    }
+
+    private static double[] zipfCumulative(int teams, double skew) {
+        double[] cumulative = new double[teams];
+        double sum = 0;
+        for (int i = 0; i < teams; i++) {
+            sum += 1.0 / Math.pow(i + 1, skew);
+            cumulative[i] = sum;
+        }
+        return cumulative;
+    }
+}
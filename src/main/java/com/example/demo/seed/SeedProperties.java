@@ -0,0 +1,33 @@
+package com.example.demo.seed;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 테스트 데이터 생성 설정 (demo.seed.*).
+ * 기본값은 예전 InitMember 와 같은 규모(팀 2개, 회원 100명).
+ */
+@Component
+@ConfigurationProperties(prefix = "demo.seed")
+@Getter
+@Setter
+public class SeedProperties {
+
+    private int teams = 2;
+    private long members = 100;
+
+    /** JDBC batch 크기이자 한 트랜잭션에서 커밋하는 row 수 */
+    private int batchSize = 1000;
+    private int threads = 1;
+
+    /** 같은 seed 면 스레드 수와 상관없이 같은 데이터가 만들어진다. */
+    private long seed = 42L;
+
+    /** 팀 크기 Zipf 분포 지수. 0 이면 균등, 클수록 앞쪽 팀에 회원이 몰린다. */
+    private double teamSkew = 1.0;
+
+    private double ageMean = 35;
+    private double ageStdDev = 12;
+}
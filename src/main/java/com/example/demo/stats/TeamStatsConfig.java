@@ -0,0 +1,43 @@
+package com.example.demo.stats;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * team_stats 증분 갱신 리스너를 하이버네이트에 등록하고, 보정 작업 스케줄링을 켠다.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class TeamStatsConfig {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final TeamStatsService teamStatsService;
+
+    @PostConstruct
+    public void registerListener() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                                        .getServiceRegistry()
+                                        .getService(EventListenerRegistry.class);
+
+        TeamStatsEventListener listener = new TeamStatsEventListener(teamStatsService);
+        registry.appendListeners(EventType.POST_INSERT, listener);
+        registry.appendListeners(EventType.POST_UPDATE, listener);
+        registry.appendListeners(EventType.POST_DELETE, listener);
+    }
+
+    /**
+     * demo.team-stats.scheduling=false 면 보정 작업을 돌리지 않는다 (테스트 등). 직접 호출은 그대로 된다.
+     */
+    @Configuration
+    @EnableScheduling
+    @ConditionalOnProperty(prefix = "demo.team-stats", name = "scheduling", havingValue = "true", matchIfMissing = true)
+    static class SchedulingConfig {
+    }
+}
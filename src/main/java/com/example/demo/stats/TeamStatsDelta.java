@@ -0,0 +1,143 @@
+package com.example.demo.stats;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 한 트랜잭션 동안 모은 팀별 증감. 커밋 직전에 team_stats 에 한 번에 반영한다.
+ * team_id 순서로 갱신해서 여러 팀을 바꾸는 트랜잭션끼리 교착이 생기지 않게 한다.
+ *
+ * team_stats 행은 팀을 만든 트랜잭션이 insert 한다. 커밋 전에는 다른 트랜잭션이 그 팀을 볼 수 없으므로
+ * 같은 행을 동시에 insert 하는 일이 없다. 나머지 팀은 update 만 하고, 행이 없으면(리스너 밖에서 만든 팀)
+ * 여기서 만들지 않고 전체 재계산에 맡긴다.
+ */
+class TeamStatsDelta {
+
+    private final Map<Long, Entry> teams = new TreeMap<>();
+
+    void teamCreated(Long teamId) {
+        entry(teamId).createdTeam = true;
+    }
+
+    void teamRemoved(Long teamId) {
+        entry(teamId).removedTeam = true;
+    }
+
+    void memberAdded(Long teamId, int age) {
+        Entry entry = entry(teamId);
+        entry.count++;
+        entry.ageSum += age;
+        entry.addedMin = entry.addedMin == null ? age : Math.min(entry.addedMin, age);
+        entry.addedMax = entry.addedMax == null ? age : Math.max(entry.addedMax, age);
+    }
+
+    void memberRemoved(Long teamId, int age) {
+        Entry entry = entry(teamId);
+        entry.count--;
+        entry.ageSum -= age;
+        entry.removedMin = entry.removedMin == null ? age : Math.min(entry.removedMin, age);
+        entry.removedMax = entry.removedMax == null ? age : Math.max(entry.removedMax, age);
+    }
+
+    boolean isEmpty() {
+        return teams.isEmpty();
+    }
+
+    /**
+     * @return team_stats 행이 없어서 반영하지 못한 팀이 있으면 true
+     */
+    boolean apply(Connection connection) throws SQLException {
+        boolean missing = false;
+        for (Map.Entry<Long, Entry> team : teams.entrySet()) {
+            Entry entry = team.getValue();
+            if (entry.removedTeam) {
+                try (PreparedStatement ps = connection.prepareStatement("delete from team_stats where team_id = ?")) {
+                    ps.setLong(1, team.getKey());
+                    ps.executeUpdate();
+                }
+            } else if (entry.createdTeam) {
+                insert(connection, team.getKey(), entry);
+            } else if (update(connection, team.getKey(), entry) == 0) {
+                missing = true;
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * 빠진 나이가 현재 최소/최대 이하/이상이면 최소/최대가 바뀌었을 수 있으므로 stale 로 표시한다.
+     * SET 의 식은 모두 갱신 전 값을 본다.
+     */
+    private static int update(Connection connection, Long teamId, Entry entry) throws SQLException {
+        StringBuilder sql = new StringBuilder("update team_stats set member_count = member_count + ?, age_sum = age_sum + ?");
+        if (entry.removedMin != null) {
+            sql.append(", stale = stale or min_age is null or ? <= min_age or ? >= max_age");
+        }
+        if (entry.addedMin != null) {
+            sql.append(", min_age = least(coalesce(min_age, ?), ?), max_age = greatest(coalesce(max_age, ?), ?)");
+        }
+        sql.append(" where team_id = ?");
+
+        try (PreparedStatement ps = connection.prepareStatement(sql.toString())) {
+            int i = 1;
+            ps.setLong(i++, entry.count);
+            ps.setLong(i++, entry.ageSum);
+            if (entry.removedMin != null) {
+                ps.setInt(i++, entry.removedMin);
+                ps.setInt(i++, entry.removedMax);
+            }
+            if (entry.addedMin != null) {
+                ps.setInt(i++, entry.addedMin);
+                ps.setInt(i++, entry.addedMin);
+                ps.setInt(i++, entry.addedMax);
+                ps.setInt(i++, entry.addedMax);
+            }
+            ps.setLong(i, teamId);
+            return ps.executeUpdate();
+        }
+    }
+
+    /**
+     * 이 트랜잭션에서 만든 팀. 같은 트랜잭션에서 빠진 회원이 있으면 최소/최대를 믿을 수 없으므로 stale 로 넣는다.
+     */
+    private static void insert(Connection connection, Long teamId, Entry entry) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                        "insert into team_stats (team_id, member_count, age_sum, min_age, max_age, stale) values (?, ?, ?, ?, ?, ?)")) {
+            ps.setLong(1, teamId);
+            ps.setLong(2, entry.count);
+            ps.setLong(3, entry.ageSum);
+            setInteger(ps, 4, entry.addedMin);
+            setInteger(ps, 5, entry.addedMax);
+            ps.setBoolean(6, entry.removedMin != null);
+            ps.executeUpdate();
+        }
+    }
+
+    private static void setInteger(PreparedStatement ps, int index, Integer value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.INTEGER);
+        } else {
+            ps.setInt(index, value);
+        }
+    }
+
+    private Entry entry(Long teamId) {
+        return teams.computeIfAbsent(teamId, id -> new Entry());
+    }
+
+    private static class Entry {
+
+        private long count;
+        private long ageSum;
+        private Integer addedMin;
+        private Integer addedMax;
+        private Integer removedMin;
+        private Integer removedMax;
+        private boolean createdTeam;
+        private boolean removedTeam;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.demo.stats;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * POST /actuator/teamstats : team_stats 를 member 에서 다시 계산한다 ({@link TeamStatsService#rebuild()}).
+ * 모든 팀을 잠그고 다시 세므로 서비스 포트가 아니라 actuator 로만 연다. 노출 여부와 포트는 management.* 설정을 따른다.
+ */
+@Component
+@Endpoint(id = "teamstats")
+public class TeamStatsEndpoint {
+
+    private final TeamStatsService teamStatsService;
+
+    public TeamStatsEndpoint(TeamStatsService teamStatsService) {
+        this.teamStatsService = teamStatsService;
+    }
+
+    @WriteOperation
+    public void rebuild() {
+        teamStatsService.rebuild();
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.demo.stats;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import com.example.demo.entity.Member;
+import com.example.demo.entity.Team;
+
+/**
+ * Member/Team insert, update, delete 를 팀별 증감으로 모아 두었다가 커밋 직전에 team_stats 에 반영한다.
+ * 같은 트랜잭션에서 반영하므로 롤백되면 요약도 바뀌지 않는다.
+ * changeTeam 은 이전 팀에서 빠지고 새 팀에 들어온 것으로 처리한다.
+ * 벌크 JPQL 과 JDBC 로 바꾼 데이터는 이벤트가 없으므로 {@link TeamStatsService#rebuild()} 로 맞춘다.
+ */
+public class TeamStatsEventListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final TeamStatsService teamStatsService;
+
+    /** 세션별 아직 반영하지 않은 증감 */
+    private final Map<SharedSessionContractImplementor, TeamStatsDelta> pending = new ConcurrentHashMap<>();
+
+    public TeamStatsEventListener(TeamStatsService teamStatsService) {
+        this.teamStatsService = teamStatsService;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            Long teamId = teamId(event.getPersister(), event.getState());
+            if (teamId != null) {
+                delta(event.getSession()).memberAdded(teamId, age(event.getPersister(), event.getState()));
+            }
+        } else if (event.getEntity() instanceof Team) {
+            delta(event.getSession()).teamCreated((Long) event.getId());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Member)) {
+            return;
+        }
+
+        EntityPersister persister = event.getPersister();
+        Long newTeamId = teamId(persister, event.getState());
+        int newAge = age(persister, event.getState());
+        if (event.getOldState() == null) {
+            // detached 엔티티 update 등 이전 값을 모르면 전체 재계산에 맡긴다
+            teamStatsService.requestRebuild();
+            return;
+        }
+
+        Long oldTeamId = teamId(persister, event.getOldState());
+        int oldAge = age(persister, event.getOldState());
+        if (newAge == oldAge && Objects.equals(oldTeamId, newTeamId)) {
+            return;
+        }
+
+        TeamStatsDelta delta = delta(event.getSession());
+        if (oldTeamId != null) {
+            delta.memberRemoved(oldTeamId, oldAge);
+        }
+        if (newTeamId != null) {
+            delta.memberAdded(newTeamId, newAge);
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            Long teamId = teamId(event.getPersister(), event.getDeletedState());
+            if (teamId != null) {
+                delta(event.getSession()).memberRemoved(teamId, age(event.getPersister(), event.getDeletedState()));
+            }
+        } else if (event.getEntity() instanceof Team) {
+            delta(event.getSession()).teamRemoved((Long) event.getId());
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    /**
+     * 세션마다 처음 한 번 커밋 직전/완료 후 처리를 등록한다.
+     */
+    private TeamStatsDelta delta(EventSource session) {
+        return pending.computeIfAbsent(session, s -> {
+            session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) this::apply);
+            session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, s2) -> pending.remove(s2));
+            return new TeamStatsDelta();
+        });
+    }
+
+    private void apply(SessionImplementor session) {
+        TeamStatsDelta delta = pending.remove(session);
+        if (delta != null && !delta.isEmpty()) {
+            session.doWork(connection -> {
+                if (delta.apply(connection)) {
+                    teamStatsService.requestRebuild(); // team_stats 행이 없는 팀은 전체 재계산이 행을 만든다
+                }
+            });
+        }
+    }
+
+    private static Long teamId(EntityPersister persister, Object[] state) {
+        Object team = state[persister.getPropertyIndex("team")];
+        return team != null ? ((Team) team).getId() : null;
+    }
+
+    private static int age(EntityPersister persister, Object[] state) {
+        return (Integer) state[persister.getPropertyIndex("age")];
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.demo.stats;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.example.demo.dto.TeamStatsDto;
+import com.example.demo.repository.TeamStatsRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * team_stats 조회와 보정.
+ * - repairStale : stale 로 표시된 팀만 member 에서 다시 계산한다. (team_id, age) 인덱스 범위만 읽는다.
+ * - rebuild     : 모든 팀을 stale 로 표시하고 다시 계산한다. 벌크/JDBC 변경 후나 정기 점검용.
+ *
+ * 팀마다 team_stats 행을 먼저 잠그고 member 를 집계한다. 같은 팀의 증분 반영은 잠금이 풀릴 때까지 기다렸다가
+ * 집계 이후에 더해지므로, 보정 중에 들어온 변경도 빠지거나 두 번 세지 않는다.
+ */
+@Slf4j
+@Service
+public class TeamStatsService {
+
+    private final TeamStatsRepository teamStatsRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AtomicBoolean rebuildRequested = new AtomicBoolean();
+
+    public TeamStatsService(TeamStatsRepository teamStatsRepository, JdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager) {
+        this.teamStatsRepository = teamStatsRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public List<TeamStatsDto> findAll() {
+        return teamStatsRepository.findAllWithTeamName();
+    }
+
+    /**
+     * 다음 repairStale 주기에 전체 재계산한다.
+     */
+    public void requestRebuild() {
+        rebuildRequested.set(true);
+    }
+
+    @Scheduled(fixedDelayString = "${demo.team-stats.repair-interval:PT10S}")
+    public void repairStale() {
+        if (rebuildRequested.getAndSet(false)) {
+            rebuild();
+            return;
+        }
+
+        List<Long> staleTeamIds = jdbcTemplate.queryForList("select team_id from team_stats where stale = true", Long.class);
+        staleTeamIds.forEach(this::recompute);
+    }
+
+    @Scheduled(cron = "${demo.team-stats.rebuild-cron:0 0 4 * * *}")
+    public void rebuild() {
+        long started = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("insert into team_stats (team_id, member_count, age_sum, min_age, max_age, stale)"
+                                            + " select t.team_id, 0, 0, null, null, true from team t"
+                                            + " where not exists (select 1 from team_stats s where s.team_id = t.team_id)");
+            jdbcTemplate.update("delete from team_stats s where not exists (select 1 from team t where t.team_id = s.team_id)");
+            jdbcTemplate.update("update team_stats set stale = true");
+        });
+
+        List<Long> teamIds = jdbcTemplate.queryForList("select team_id from team_stats order by team_id", Long.class);
+        teamIds.forEach(this::recompute);
+        log.info("rebuilt team_stats for {} teams in {} ms", teamIds.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private void recompute(Long teamId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Long> locked = jdbcTemplate.queryForList("select team_id from team_stats where team_id = ? for update",
+                                            Long.class, teamId);
+            if (locked.isEmpty()) {
+                return;
+            }
+
+            Map<String, Object> row = jdbcTemplate.queryForMap(
+                                            "select count(*) cnt, coalesce(sum(age), 0) age_sum, min(age) min_age, max(age) max_age"
+                                                            + " from member where team_id = ?", teamId);
+            jdbcTemplate.update("update team_stats set member_count = ?, age_sum = ?, min_age = ?, max_age = ?, stale = false"
+                                            + " where team_id = ?",
+                                            row.get("cnt"), row.get("age_sum"), row.get("min_age"), row.get("max_age"), teamId);
+        });
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.demo.support;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+import com.example.demo.entity.Team;
+import com.example.demo.repository.TeamRepository;
+
+/**
+ * 하이버네이트 2차 캐시 / 쿼리 캐시 영역별 적중률.
+ * hibernate.generate_statistics 가 켜져 있어야 값이 쌓인다 (local 프로파일만 켠다).
+ */
+@Component
+public class CacheStatistics {
+
+    private final Statistics statistics;
+
+    public CacheStatistics(EntityManagerFactory emf) {
+        this.statistics = emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    public Map<String, Map<String, Object>> teamCache() {
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        result.put("entity", toMap(statistics.getDomainDataRegionStatistics(Team.class.getName())));
+        result.put("byName", toMap(statistics.getQueryRegionStatistics(TeamRepository.TEAM_BY_NAME_REGION)));
+        return result;
+    }
+
+    private static Map<String, Object> toMap(CacheRegionStatistics region) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        if (region == null) {
+            return map;
+        }
+        long hits = region.getHitCount();
+        long misses = region.getMissCount();
+        map.put("hits", hits);
+        map.put("misses", misses);
+        map.put("puts", region.getPutCount());
+        map.put("size", region.getElementCountInMemory());
+        map.put("hitRatio", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        return map;
+    }
+}
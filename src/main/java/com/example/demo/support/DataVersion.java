@@ -0,0 +1,126 @@
+package com.example.demo.support;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Member/Team 데이터가 바뀔 때마다 증가하는 버전. DB 의 data_version 행 하나에 두므로 모든 노드가 같은 값을 본다.
+ *
+ * - 엔티티 변경은 {@link DataVersionEventListener} 가, 벌크 JPQL/JDBC 변경은 {@link #bump()} 가 데이터와 같은 트랜잭션에서 올린다.
+ *   커밋 직전에 올리므로 행 잠금은 커밋까지만 잡고, 롤백되면 버전도 그대로다.
+ * - 애플리케이션을 거치지 않고 member/team 을 바꾸면 같은 트랜잭션에서
+ *   update data_version set version = version + 1 where id = 1 도 실행해야 한다.
+ * - epoch 는 행을 만들 때(스키마를 새로 만들 때) 정해진다. 다시 만들면 버전이 0 부터 시작하므로 epoch 로 구분한다.
+ */
+@Component
+public class DataVersion implements SmartInitializingSingleton {
+
+    static final String BUMP = "update data_version set version = version + 1 where id = 1";
+    private static final String SELECT = "select epoch, version from data_version where id = 1";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DataVersion(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 응답에 싣는 버전 (ETag, 페이지 토큰, count 캐시). epoch 와 버전이 모두 같아야 같은 데이터다.
+     */
+    @Getter
+    @EqualsAndHashCode
+    @ToString
+    public static class Stamp {
+
+        private final long epoch;
+        private final long version;
+
+        public Stamp(long epoch, long version) {
+            this.epoch = epoch;
+            this.version = version;
+        }
+
+        /** 같은 epoch 에서 더 나중 버전인지 */
+        public boolean isNewerThan(Stamp other) {
+            return epoch == other.epoch && version > other.version;
+        }
+    }
+
+    /**
+     * 읽기 전용 트랜잭션에서 읽으므로 라우팅을 켜면 요청 범위(ReadRouting)의 replica 에서 읽고, 이후 검색도 같은 replica 를 쓴다.
+     * 행이 아직 없으면(기동 직후, 복제 전) 매번 다른 epoch 를 돌려주므로 그 값으로 만든 ETag, 토큰은 다시 맞지 않는다.
+     */
+    @Transactional(readOnly = true)
+    public Stamp current() {
+        List<Stamp> rows = jdbcTemplate.query(SELECT, (rs, i) -> new Stamp(rs.getLong(1), rs.getLong(2)));
+        return rows.isEmpty() ? new Stamp(newEpoch(), 0) : rows.get(0);
+    }
+
+    /**
+     * 벌크 JPQL/JDBC 로 데이터를 바꾼 뒤 호출한다. 트랜잭션 안이면 커밋 직전에 한 번, 밖이면 바로 올린다.
+     */
+    public void bump() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            jdbcTemplate.update(BUMP);
+            return;
+        }
+
+        if (TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+
+        TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                jdbcTemplate.update(BUMP);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(DataVersion.this);
+            }
+        });
+    }
+
+    /**
+     * 하이버네이트 세션의 커넥션으로 올린다 ({@link DataVersionEventListener}).
+     */
+    static void bump(Connection connection) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(BUMP)) {
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * 스키마가 만들어진 뒤(EntityManagerFactory 생성 후) 행이 없으면 만든다. 다른 노드가 먼저 만들었으면 그대로 쓴다.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (jdbcTemplate.queryForObject("select count(*) from data_version where id = 1", Long.class) > 0) {
+            return;
+        }
+        try {
+            jdbcTemplate.update("insert into data_version (id, epoch, version) values (1, ?, 0)", newEpoch());
+        } catch (DuplicateKeyException e) {
+            // 동시에 기동한 다른 노드가 만들었다
+        }
+    }
+
+    private static long newEpoch() {
+        return ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE;
+    }
+}
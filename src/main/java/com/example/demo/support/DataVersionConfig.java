@@ -0,0 +1,31 @@
+package com.example.demo.support;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.context.annotation.Configuration;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * {@link DataVersionEventListener} 를 하이버네이트에 등록한다. 다른 리스너보다 앞에 둔다.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class DataVersionConfig {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @PostConstruct
+    public void registerListener() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                                        .getServiceRegistry()
+                                        .getService(EventListenerRegistry.class);
+
+        DataVersionEventListener listener = new DataVersionEventListener();
+        registry.prependListeners(EventType.POST_INSERT, listener);
+        registry.prependListeners(EventType.POST_UPDATE, listener);
+        registry.prependListeners(EventType.POST_DELETE, listener);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.demo.support;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import com.example.demo.entity.Member;
+import com.example.demo.entity.Team;
+
+/**
+ * Member/Team 이 바뀐 세션은 커밋 직전(flush 이후)에 같은 커넥션으로 {@link DataVersion} 을 한 번 올린다.
+ * 엔티티 insert/update 는 커밋 때 flush 되는 경우가 많아서 스프링 beforeCommit 으로는 늦다.
+ *
+ * 다른 리스너보다 앞에 등록해서(DataVersionConfig) 버전 갱신이 team_stats 갱신보다 항상 먼저 실행되게 한다.
+ * 트랜잭션마다 잠그는 순서가 같아야 교착이 생기지 않는다.
+ */
+public class DataVersionEventListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    /** 이미 등록한 세션 */
+    private final Set<SharedSessionContractImplementor> pending = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        changed(event.getEntity(), event.getSession());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        changed(event.getEntity(), event.getSession());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        changed(event.getEntity(), event.getSession());
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private void changed(Object entity, EventSource session) {
+        if (!(entity instanceof Member || entity instanceof Team) || !pending.add(session)) {
+            return;
+        }
+        session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) this::bump);
+        session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, s) -> pending.remove(s));
+    }
+
+    private void bump(SessionImplementor session) {
+        if (pending.remove(session)) {
+            session.doWork(DataVersion::bump);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.demo.support;
+
+import static com.example.demo.dto.MemberSearchCondition.AGE_GOE;
+import static com.example.demo.dto.MemberSearchCondition.AGE_LOE;
+import static com.example.demo.dto.MemberSearchCondition.SHAPE_COUNT;
+import static com.example.demo.dto.MemberSearchCondition.TEAM_NAME;
+import static com.example.demo.dto.MemberSearchCondition.USERNAME;
+import static com.example.demo.dto.MemberSearchCondition.USERNAME_CONTAINS;
+import static com.example.demo.dto.MemberSearchCondition.USERNAME_PREFIX;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import com.example.demo.dto.MemberSearchCondition;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 개발용 인덱스 점검.
+ * MemberSearchCondition 의 64가지 조건 조합마다 검색 SQL 을 H2 EXPLAIN 으로 확인하고 테이블 풀스캔이 남은 조합을 알려준다.
+ * 조건이 하나도 없는 조합은 원래 전체를 읽으므로 제외한다.
+ */
+@Slf4j
+@Profile("local")
+@Component
+@ConditionalOnProperty(name = "demo.index-advisor.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class IndexAdvisor {
+
+    private static final String SELECT = "select m.member_id, m.username, m.age, t.team_id, t.name"
+                                    + " from member m left join team t on m.team_id = t.team_id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void report() {
+        List<Advice> scans = new ArrayList<>();
+        for (Advice advice : explainAll()) {
+            if (advice.isTableScan()) {
+                scans.add(advice);
+            }
+        }
+
+        if (scans.isEmpty()) {
+            log.info("index advisor: every search shape uses an index");
+            return;
+        }
+        for (Advice advice : scans) {
+            log.warn("index advisor: table scan for shape {}\n{}", advice.getConditions(), advice.getPlan());
+        }
+    }
+
+    public List<Advice> explainAll() {
+        List<Advice> result = new ArrayList<>();
+        for (int shape = 1; shape < SHAPE_COUNT; shape++) {
+            String plan = jdbcTemplate.queryForObject("explain " + SELECT + where(shape), String.class);
+            result.add(new Advice(shape, MemberSearchCondition.shapeName(shape), plan));
+        }
+        return result;
+    }
+
+    private static String where(int shape) {
+        List<String> predicates = new ArrayList<>();
+        if ((shape & USERNAME) != 0) {
+            predicates.add("m.username = 'member1'");
+        }
+        if ((shape & TEAM_NAME) != 0) {
+            predicates.add("m.team_id in (1)"); // 팀 이름은 TeamNameResolver 가 id 로 바꿔서 조회한다
+        }
+        if ((shape & AGE_GOE) != 0) {
+            predicates.add("m.age >= 20");
+        }
+        if ((shape & AGE_LOE) != 0) {
+            predicates.add("m.age <= 30");
+        }
+        if ((shape & USERNAME_PREFIX) != 0) {
+            predicates.add("m.username like 'member1%'");
+        }
+        if ((shape & USERNAME_CONTAINS) != 0) {
+            // 부분 문자열은 UsernameIndex 후보 id 로 좁혀서 조회한다
+            predicates.add("m.member_id in (1, 2) and m.username like '%ember1%'");
+        }
+        return " where " + String.join(" and ", predicates);
+    }
+
+    @Getter
+    public static class Advice {
+
+        private final int shape;
+        private final String conditions;
+        private final String plan;
+
+        Advice(int shape, String conditions, String plan) {
+            this.shape = shape;
+            this.conditions = conditions;
+            this.plan = plan;
+        }
+
+        public boolean isTableScan() {
+            return plan != null && plan.contains(".tableScan");
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.demo.support;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.OptionalLong;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import com.example.demo.dto.MemberSearchCondition;
+
+/**
+ * 검색 조건 + 전체 건수 + 데이터 버전(epoch 포함)을 담은 서명 토큰.
+ * 같은 조건으로 다음 페이지를 요청할 때 버전이 그대로면 count 쿼리 없이 전체 건수를 재사용한다.
+ * 여러 노드에서 토큰을 공유하려면 demo.page-token.secret 을 동일하게 설정해야 한다.
+ * 스키마를 새로 만들면 버전 숫자가 다시 같은 값부터 나오므로 epoch 까지 같아야 받아들인다 (SearchETag 와 같다).
+ */
+@Component
+public class PageTokenCodec {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+
+    public PageTokenCodec(@Value("${demo.page-token.secret:}") String secret) {
+        byte[] keyBytes;
+        if (StringUtils.hasText(secret)) {
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        } else {
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+        }
+        this.key = new SecretKeySpec(keyBytes, ALGORITHM);
+    }
+
+    public String issue(MemberSearchCondition condition, long total, DataVersion.Stamp version) {
+        String payload = version.getEpoch() + "|" + version.getVersion() + "|" + total + "|" + condition.normalizedKey();
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        return ENCODER.encodeToString(payloadBytes) + "." + ENCODER.encodeToString(sign(payloadBytes));
+    }
+
+    /**
+     * 서명, 조건, epoch, 버전이 모두 일치할 때만 토큰의 전체 건수를 돌려준다.
+     */
+    public OptionalLong verifyTotal(String token, MemberSearchCondition condition, DataVersion.Stamp current) {
+        if (!StringUtils.hasText(token)) {
+            return OptionalLong.empty();
+        }
+
+        try {
+            int dot = token.indexOf('.');
+            if (dot < 0) {
+                return OptionalLong.empty();
+            }
+
+            byte[] payloadBytes = DECODER.decode(token.substring(0, dot));
+            byte[] signature = DECODER.decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(sign(payloadBytes), signature)) {
+                return OptionalLong.empty();
+            }
+
+            String[] parts = new String(payloadBytes, StandardCharsets.UTF_8).split("\\|", 4);
+            if (parts.length != 4
+                    || Long.parseLong(parts[0]) != current.getEpoch()
+                    || Long.parseLong(parts[1]) != current.getVersion()
+                    || !parts[3].equals(condition.normalizedKey())) {
+                return OptionalLong.empty();
+            }
+            return OptionalLong.of(Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException e) {
+            // base64/숫자 형식 오류는 토큰이 없는 것으로 취급
+            return OptionalLong.empty();
+        }
+    }
+
+    private byte[] sign(byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
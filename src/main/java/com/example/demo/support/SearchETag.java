@@ -0,0 +1,32 @@
+package com.example.demo.support;
+
+import java.nio.charset.StandardCharsets;
+import org.springframework.data.domain.Pageable;
+import org.springframework.util.DigestUtils;
+import com.example.demo.dto.MemberSearchCondition;
+
+/**
+ * 검색 응답 ETag. 데이터 버전(epoch 포함) + 엔드포인트 + 정규화된 조건 + 페이지로 만든다.
+ * 버전이 그대로면 같은 요청의 결과도 같으므로 If-None-Match 가 일치하면 검색 쿼리 없이 304 를 돌려줄 수 있다.
+ * 버전은 DB 의 공유 행이므로 비교하려면 그 행 하나는 읽는다 (DataVersion).
+ */
+public final class SearchETag {
+
+    private SearchETag() {
+    }
+
+    /**
+     * @param pageable 페이징이 없는 엔드포인트면 null
+     */
+    public static String of(String endpoint, DataVersion.Stamp version, MemberSearchCondition condition, Pageable pageable) {
+        StringBuilder key = new StringBuilder(endpoint).append('|').append(condition.normalizedKey());
+        if (pageable != null) {
+            key.append('|').append(pageable.getPageNumber())
+               .append('|').append(pageable.getPageSize())
+               .append('|').append(pageable.getSort());
+        }
+
+        String digest = DigestUtils.md5DigestAsHex(key.toString().getBytes(StandardCharsets.UTF_8));
+        return "\"" + Long.toHexString(version.getEpoch()) + "-" + version.getVersion() + "-" + digest + "\"";
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.demo.support.datasource;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * demo.datasource.routing.enabled=true 일 때만 DataSource 를 직접 만든다. 아니면 기본 단일 DataSource 그대로.
+ * primary, replica 풀은 ReadWriteRoutingDataSource 가 닫는다.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "demo.datasource.routing", name = "enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    public ReadWriteRoutingDataSource readWriteRoutingDataSource(DataSourceProperties primaryProperties,
+                                                                 DataSourceRoutingProperties properties) {
+        DataSource primary = primaryProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+
+        List<DataSource> replicas = new ArrayList<>();
+        for (DataSourceRoutingProperties.Replica replica : properties.getReplicas()) {
+            replicas.add(DataSourceBuilder.create()
+                                          .type(HikariDataSource.class)
+                                          .driverClassName(primaryProperties.determineDriverClassName())
+                                          .url(replica.getUrl())
+                                          .username(replica.getUsername())
+                                          .password(replica.getPassword())
+                                          .build());
+        }
+
+        return new ReadWriteRoutingDataSource(primary, replicas, properties.getReadYourWritesWindow(),
+                                              properties.getHealthCheckInterval());
+    }
+
+    /**
+     * 요청 안의 읽기 전용 트랜잭션들이 같은 replica 를 보게 한다.
+     */
+    @Bean
+    public ReadRoutingFilter readRoutingFilter() {
+        return new ReadRoutingFilter();
+    }
+
+    /**
+     * JPA 가 쓰는 DataSource. 실제 커넥션은 첫 SQL 때 얻으므로 그때는 readOnly 여부가 정해져 있다.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource readWriteRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(readWriteRoutingDataSource);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.demo.support.datasource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 읽기/쓰기 datasource 분리 (demo.datasource.routing.*).
+ * primary 는 spring.datasource.* 를 그대로 쓴다. 복제 자체는 DB 쪽에서 한다.
+ */
+@Component
+@ConfigurationProperties(prefix = "demo.datasource.routing")
+@Getter
+@Setter
+public class DataSourceRoutingProperties {
+
+    private boolean enabled = false;
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    /** 쓰기 커밋 후 이 시간 동안은 읽기도 primary 로 보낸다. 0 이면 끈다. */
+    private Duration readYourWritesWindow = Duration.ZERO;
+
+    /** replica 상태 확인 주기. 0 이면 커넥션 실패로만 제외한다 (되돌리지 않음). */
+    private Duration healthCheckInterval = Duration.ofSeconds(5);
+
+    @Getter
+    @Setter
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.demo.support.datasource;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * 요청 하나의 읽기 전용 트랜잭션들을 같은 DB 로 보내기 위한 스레드 범위 ({@link ReadRoutingFilter} 가 연다).
+ * 범위 안에서 처음 고른 replica(또는 primary)를 이후 읽기에도 쓰므로, content 와 count 가 서로 다른 replica 를 보지 않는다.
+ *
+ * - 데이터 버전(DataVersion)도 같은 범위에서 읽으므로 ETag, 페이지 토큰의 버전은 본문을 읽은 replica 의 것이다.
+ * - 방금 쓴 데이터를 꼭 봐야 하는 읽기만 {@link #usePrimary()} 나 {@link #onPrimary}로 primary 에서 읽는다.
+ * - 다른 스레드에서 도는 작업은 {@link #propagate} 로 감싸야 같은 범위를 쓴다.
+ * - 범위가 없으면(라우팅을 쓰지 않거나 요청 밖) 트랜잭션마다 따로 고른다.
+ */
+public final class ReadRouting {
+
+    private static final ThreadLocal<Scope> SCOPE = new ThreadLocal<>();
+
+    private ReadRouting() {
+    }
+
+    static Scope current() {
+        return SCOPE.get();
+    }
+
+    /**
+     * 새 범위를 열고 이전 범위를 돌려준다. 끝나면 {@link #restore} 에 넘긴다.
+     */
+    static Scope open(Object key) {
+        Scope previous = SCOPE.get();
+        SCOPE.set(new Scope(key));
+        return previous;
+    }
+
+    static void restore(Scope previous) {
+        if (previous == null) {
+            SCOPE.remove();
+        } else {
+            SCOPE.set(previous);
+        }
+    }
+
+    /**
+     * 현재 범위의 이후 읽기를 primary 로 보낸다. 범위가 없으면 아무것도 하지 않는다.
+     */
+    public static void usePrimary() {
+        Scope scope = SCOPE.get();
+        if (scope != null) {
+            scope.key.set(ReadWriteRoutingDataSource.PRIMARY);
+        }
+    }
+
+    /**
+     * 현재 스레드의 범위와 상관없이 work 의 읽기를 primary 로 보낸다.
+     */
+    public static <T> T onPrimary(Supplier<T> work) {
+        Scope previous = open(ReadWriteRoutingDataSource.PRIMARY);
+        try {
+            return work.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * 지금 스레드의 범위를 task 를 실행하는 스레드에서도 쓴다.
+     */
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        Scope scope = SCOPE.get();
+        if (scope == null) {
+            return task;
+        }
+        return () -> {
+            Scope previous = SCOPE.get();
+            SCOPE.set(scope);
+            try {
+                return task.call();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    static final class Scope {
+
+        private final AtomicReference<Object> key;
+
+        Scope(Object key) {
+            this.key = new AtomicReference<>(key);
+        }
+
+        Object key() {
+            return key.get();
+        }
+
+        /**
+         * 아직 정해지지 않았으면 key 로 정한다. 동시에 정하면 먼저 정한 쪽을 돌려준다.
+         */
+        Object pin(Object candidate) {
+            return key.compareAndSet(null, candidate) ? candidate : key.get();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.demo.support.datasource;
+
+import java.io.IOException;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * HTTP 요청 단위 {@link ReadRouting} 범위. 라우팅을 켰을 때만 등록한다 (DataSourceRoutingConfig).
+ */
+public class ReadRoutingFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+                                    throws ServletException, IOException {
+        ReadRouting.Scope previous = ReadRouting.open(null);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReadRouting.restore(previous);
+        }
+    }
+}
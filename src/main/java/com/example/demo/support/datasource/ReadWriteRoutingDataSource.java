@@ -0,0 +1,217 @@
+package com.example.demo.support.datasource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 읽기 전용 트랜잭션(@Transactional(readOnly = true))은 replica 로, 나머지는 primary 로 보낸다.
+ * 트랜잭션 시작 시점에는 readOnly 여부가 아직 정해지지 않으므로 반드시 LazyConnectionDataSourceProxy 로 감싸서 쓴다.
+ *
+ * - replica 는 건강한 것 중에서 돌아가며 고른다. 주기적으로 isValid 로 확인하고, 커넥션을 못 얻으면 바로 제외하고 primary 로 보낸다.
+ * - readYourWritesWindow 가 있으면 쓰기 트랜잭션이 커밋된 뒤 그 시간 동안은 읽기도 primary 로 보낸다 (노드 단위).
+ *   replica 복제 지연 동안 방금 쓴 데이터가 안 보이는 것을 막는다.
+ * - {@link ReadRouting} 범위 안에서는 처음 고른 대상을 범위가 끝날 때까지 쓴다. 그 replica 가 빠지면 primary 로 보낸다.
+ * - primary, replica DataSource 는 빈이 아니므로 destroy 에서 직접 닫는다.
+ */
+@Slf4j
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    static final String PRIMARY = "primary";
+    static final String REPLICA_PREFIX = "replica-";
+
+    private final DataSource primary;
+    private final List<DataSource> replicas;
+    private final long readYourWritesNanos;
+    private final AtomicReferenceArray<Boolean> healthy;
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicLong lastWriteCommitNanos;
+    private final Object writeMarker = new Object();
+    private final ScheduledExecutorService healthChecker;
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<DataSource> replicas,
+                                      Duration readYourWritesWindow, Duration healthCheckInterval) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.readYourWritesNanos = readYourWritesWindow.toNanos();
+        this.lastWriteCommitNanos = new AtomicLong(System.nanoTime() - readYourWritesNanos);
+        this.healthy = new AtomicReferenceArray<>(replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            healthy.set(i, Boolean.TRUE);
+        }
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(REPLICA_PREFIX + i, replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+
+        if (!replicas.isEmpty() && !healthCheckInterval.isZero()) {
+            healthChecker = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("replica-health-"));
+            healthChecker.scheduleWithFixedDelay(this::checkReplicas, healthCheckInterval.toMillis(),
+                                            healthCheckInterval.toMillis(), TimeUnit.MILLISECONDS);
+        } else {
+            healthChecker = null;
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            markWriteOnCommit();
+            return PRIMARY;
+        }
+
+        ReadRouting.Scope scope = ReadRouting.current();
+        Object pinned = scope != null ? scope.key() : null;
+        if (pinned == null) {
+            pinned = scope != null ? scope.pin(chooseForRead()) : chooseForRead();
+        }
+        if (!PRIMARY.equals(pinned) && !healthy.get(replicaIndex(pinned))) {
+            return PRIMARY; // 다른 replica 로 옮기면 같은 요청 안에서 복제 시점이 섞인다
+        }
+        return pinned;
+    }
+
+    private Object chooseForRead() {
+        if (readYourWritesNanos > 0 && System.nanoTime() - lastWriteCommitNanos.get() < readYourWritesNanos) {
+            return PRIMARY;
+        }
+
+        int replica = pickReplica();
+        return replica < 0 ? PRIMARY : REPLICA_PREFIX + replica;
+    }
+
+    private static int replicaIndex(Object key) {
+        return Integer.parseInt(((String) key).substring(REPLICA_PREFIX.length()));
+    }
+
+    /**
+     * replica 커넥션을 못 얻으면 그 replica 를 제외하고 primary 로 보낸다.
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        Object key = determineCurrentLookupKey();
+        if (PRIMARY.equals(key)) {
+            return primary.getConnection();
+        }
+
+        int replica = replicaIndex(key);
+        try {
+            return replicas.get(replica).getConnection();
+        } catch (SQLException e) {
+            markDown(replica, e);
+            return primary.getConnection();
+        }
+    }
+
+    /**
+     * 계정을 지정한 커넥션은 primary 에서만 얻는다. replica 는 각자 설정된 계정을 쓴다.
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    /**
+     * 제외된 replica 도 다시 확인해서 살아나면 되돌린다.
+     */
+    public void checkReplicas() {
+        for (int i = 0; i < replicas.size(); i++) {
+            try (Connection connection = replicas.get(i).getConnection()) {
+                if (connection.isValid(1)) {
+                    if (!healthy.getAndSet(i, Boolean.TRUE)) {
+                        log.info("replica {} is back", i);
+                    }
+                } else {
+                    markDown(i, null);
+                }
+            } catch (SQLException e) {
+                markDown(i, e);
+            }
+        }
+    }
+
+    public boolean isReplicaHealthy(int replica) {
+        return healthy.get(replica);
+    }
+
+    private int pickReplica() {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(1, size));
+        for (int i = 0; i < size; i++) {
+            int candidate = (start + i) % size;
+            if (healthy.get(candidate)) {
+                return candidate;
+            }
+        }
+        return -1;
+    }
+
+    private void markDown(int replica, SQLException cause) {
+        if (healthy.getAndSet(replica, Boolean.FALSE)) {
+            log.warn("replica {} is down, reading from primary", replica, cause);
+        }
+    }
+
+    /**
+     * 쓰기 트랜잭션이면 커밋 후 시각을 남긴다. 트랜잭션당 한 번만 등록한다.
+     */
+    private void markWriteOnCommit() {
+        if (readYourWritesNanos <= 0 || !TransactionSynchronizationManager.isSynchronizationActive()
+                        || TransactionSynchronizationManager.hasResource(writeMarker)) {
+            return;
+        }
+
+        TransactionSynchronizationManager.bindResource(writeMarker, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                lastWriteCommitNanos.set(System.nanoTime());
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(writeMarker);
+            }
+        });
+    }
+
+    @Override
+    public void destroy() {
+        if (healthChecker != null) {
+            healthChecker.shutdownNow();
+        }
+        close(primary);
+        replicas.forEach(this::close);
+    }
+
+    private void close(DataSource dataSource) {
+        if (dataSource instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) dataSource).close();
+            } catch (Exception e) {
+                log.warn("failed to close data source {}", dataSource, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.demo.support.sql;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.stereotype.Component;
+
+/**
+ * DELETE /actuator/sqlcapture : 표본 SQL 통계를 비운다.
+ * 상태를 바꾸므로 서비스 포트(/stats)가 아니라 actuator 로만 연다. 노출 여부와 포트는 management.* 설정을 따른다.
+ */
+@Component
+@Endpoint(id = "sqlcapture")
+public class SqlCaptureEndpoint {
+
+    private final SqlCaptureListener sqlCaptureListener;
+
+    public SqlCaptureEndpoint(SqlCaptureListener sqlCaptureListener) {
+        this.sqlCaptureListener = sqlCaptureListener;
+    }
+
+    @DeleteOperation
+    public void reset() {
+        sqlCaptureListener.reset();
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.demo.support.sql;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.springframework.stereotype.Component;
+import com.p6spy.engine.common.ResultSetInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.JdbcEventListener;
+
+/**
+ * trace 로그 대신 쓰는 운영용 SQL 수집.
+ * 실행된 SQL 중 sample-rate 비율만 골라 리터럴을 지운 SQL 모양별로 건수, 지연 백분위, 최대 row 수를 모은다.
+ * 표본이 아닌 SQL 은 난수 하나만 비교하고 끝나므로 부하가 거의 없다.
+ */
+@Component
+public class SqlCaptureListener extends JdbcEventListener {
+
+    private static final String OTHER = "(other)";
+
+    private static final Pattern COMMENT = Pattern.compile("/\\*.*?\\*/", Pattern.DOTALL);
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    /** 표본으로 뽑힌 결과셋의 row 수. 결과셋은 한 스레드에서 순서대로 읽힌다. */
+    private static final ThreadLocal<RowCounter> ROWS = new ThreadLocal<>();
+
+    private final SqlCaptureProperties properties;
+    private final Map<String, SqlShapeStats> shapes = new ConcurrentHashMap<>();
+
+    public SqlCaptureListener(SqlCaptureProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        if (sampled()) {
+            stats(statementInformation.getSql()).recordExecution(timeElapsedNanos);
+        }
+    }
+
+    @Override
+    public void onAfterResultSetNext(ResultSetInformation resultSetInformation, long timeElapsedNanos,
+                                    boolean hasNext, SQLException e) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        RowCounter counter = ROWS.get();
+        if (counter == null || counter.resultSet != resultSetInformation) {
+            counter = new RowCounter(resultSetInformation, sampled());
+            ROWS.set(counter);
+        }
+        if (counter.sampled && hasNext) {
+            counter.rows++;
+        }
+    }
+
+    @Override
+    public void onAfterResultSetClose(ResultSetInformation resultSetInformation, SQLException e) {
+        RowCounter counter = ROWS.get();
+        if (counter == null || counter.resultSet != resultSetInformation) {
+            return;
+        }
+
+        ROWS.remove();
+        if (counter.sampled) {
+            stats(resultSetInformation.getStatementInformation().getSql()).recordRows(counter.rows);
+        }
+    }
+
+    /**
+     * 누적 시간이 큰 순서로 top 개.
+     */
+    public List<Map<String, Object>> top(int top) {
+        List<SqlShapeStats> all = new ArrayList<>(shapes.values());
+        return all.stream()
+                  .sorted(Comparator.comparingLong(SqlShapeStats::totalNanos).reversed())
+                  .limit(top)
+                  .map(SqlShapeStats::toMap)
+                  .collect(Collectors.toList());
+    }
+
+    public void reset() {
+        shapes.clear();
+    }
+
+    private boolean sampled() {
+        return properties.isEnabled() && ThreadLocalRandom.current().nextDouble() < properties.getSampleRate();
+    }
+
+    private SqlShapeStats stats(String sql) {
+        String shape = normalize(sql);
+        SqlShapeStats stats = shapes.get(shape);
+        if (stats != null) {
+            return stats;
+        }
+        if (shapes.size() >= properties.getMaxShapes()) {
+            return shapes.computeIfAbsent(OTHER, SqlShapeStats::new);
+        }
+        return shapes.computeIfAbsent(shape, SqlShapeStats::new);
+    }
+
+    /**
+     * 주석, 문자열/숫자 리터럴, IN 목록 길이, 공백 차이를 없앤 SQL 모양.
+     */
+    static String normalize(String sql) {
+        if (sql == null) {
+            return OTHER;
+        }
+        String shape = COMMENT.matcher(sql).replaceAll(" ");
+        shape = STRING_LITERAL.matcher(shape).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = IN_LIST.matcher(shape).replaceAll("(?)");
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim().toLowerCase();
+    }
+
+    private static class RowCounter {
+
+        private final ResultSetInformation resultSet;
+        private final boolean sampled;
+        private long rows;
+
+        RowCounter(ResultSetInformation resultSet, boolean sampled) {
+            this.resultSet = resultSet;
+            this.sampled = sampled;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.demo.support.sql;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 운영용 SQL 표본 집계 (demo.sql.capture.*).
+ */
+@Component
+@ConfigurationProperties(prefix = "demo.sql.capture")
+@Getter
+@Setter
+public class SqlCaptureProperties {
+
+    private boolean enabled = false;
+
+    /** 집계할 SQL 비율 (0.0 ~ 1.0) */
+    private double sampleRate = 0.01;
+
+    /** 서로 다른 SQL 모양 수 상한. 넘으면 "(other)" 로 합친다. */
+    private int maxShapes = 500;
+}
@@ -0,0 +1,84 @@
+package com.example.demo.support.sql;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SQL 모양 하나의 누적 통계. 잠금 없이 여러 스레드가 동시에 기록한다.
+ * 지연 시간은 2의 거듭제곱 마이크로초 구간 히스토그램으로 모으고 백분위는 구간 상한으로 근사한다.
+ */
+public class SqlShapeStats {
+
+    private static final int BUCKETS = 40;
+
+    private final String sql;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final AtomicLong maxRows = new AtomicLong();
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+    public SqlShapeStats(String sql) {
+        this.sql = sql;
+    }
+
+    public void recordExecution(long nanos) {
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+        histogram.incrementAndGet(bucket(nanos));
+    }
+
+    public void recordRows(long rows) {
+        maxRows.accumulateAndGet(rows, Math::max);
+    }
+
+    public long totalNanos() {
+        return totalNanos.sum();
+    }
+
+    public Map<String, Object> toMap() {
+        long n = count.sum();
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("sql", sql);
+        map.put("count", n);
+        map.put("totalMs", totalNanos.sum() / 1_000_000.0);
+        map.put("avgMs", n == 0 ? 0.0 : totalNanos.sum() / 1_000_000.0 / n);
+        map.put("p50Ms", percentileMicros(0.50) / 1000.0);
+        map.put("p99Ms", percentileMicros(0.99) / 1000.0);
+        map.put("maxMs", maxNanos.get() / 1_000_000.0);
+        map.put("maxRows", maxRows.get());
+        return map;
+    }
+
+    private long percentileMicros(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = histogram.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(total * percentile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return 1L << i;
+            }
+        }
+        return 1L << (BUCKETS - 1);
+    }
+
+    /** [2^(i-1), 2^i) 마이크로초 */
+    private static int bucket(long nanos) {
+        long micros = Math.max(1, nanos / 1000);
+        return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros - 1));
+    }
+}
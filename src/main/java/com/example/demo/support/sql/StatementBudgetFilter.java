@@ -0,0 +1,40 @@
+package com.example.demo.support.sql;
+
+import java.io.IOException;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * HTTP 요청 단위 SQL 집계 범위.
+ */
+@Component
+public class StatementBudgetFilter extends OncePerRequestFilter {
+
+    private final StatementBudgetListener listener;
+    private final StatementBudgetProperties properties;
+
+    public StatementBudgetFilter(StatementBudgetListener listener, StatementBudgetProperties properties) {
+        this.listener = listener;
+        this.properties = properties;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+                                    throws ServletException, IOException {
+        if (!properties.isEnabled()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        StatementScope scope = listener.open(request.getMethod() + " " + request.getRequestURI());
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            listener.close(scope);
+        }
+    }
+}
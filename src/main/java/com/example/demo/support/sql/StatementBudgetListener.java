@@ -0,0 +1,121 @@
+package com.example.demo.support.sql;
+
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import com.example.demo.support.sql.StatementBudgetProperties.Mode;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.JdbcEventListener;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * p6spy 이벤트로 HTTP 요청 / 트랜잭션 단위 SQL 실행 수와 시간을 센다.
+ * 예산(max-statements)을 넘거나 같은 SQL 이 max-repeats 보다 많이 반복되면(N+1) 경고 또는 실패.
+ *
+ * 요청 범위는 {@link StatementBudgetFilter} 가 열고, 트랜잭션 범위는 트랜잭션 안의 첫 SQL 에서 열어 트랜잭션이 끝날 때 닫는다.
+ */
+@Slf4j
+@Component
+public class StatementBudgetListener extends JdbcEventListener {
+
+    private static final ThreadLocal<Deque<StatementScope>> SCOPES = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private final StatementBudgetProperties properties;
+
+    public StatementBudgetListener(StatementBudgetProperties properties) {
+        this.properties = properties;
+    }
+
+    public StatementScope open(String name) {
+        StatementScope scope = new StatementScope(name);
+        SCOPES.get().push(scope);
+        return scope;
+    }
+
+    public void close(StatementScope scope) {
+        Deque<StatementScope> scopes = SCOPES.get();
+        scopes.remove(scope);
+        if (scopes.isEmpty()) {
+            SCOPES.remove();
+        }
+        report(scope);
+    }
+
+    @Override
+    public void onBeforeAnyExecute(StatementInformation statementInformation) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        openTransactionScopeIfNeeded();
+
+        String sql = statementInformation.getSql();
+        for (StatementScope scope : SCOPES.get()) {
+            int repeats = scope.add(sql);
+            if (properties.getMode() == Mode.FAIL) {
+                check(scope, sql, repeats);
+            }
+        }
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        for (StatementScope scope : SCOPES.get()) {
+            scope.addElapsed(timeElapsedNanos);
+        }
+    }
+
+    private void openTransactionScopeIfNeeded() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+
+        String name = TransactionSynchronizationManager.getCurrentTransactionName();
+        StatementScope scope = open("tx " + (name == null ? "" : name));
+        TransactionSynchronizationManager.bindResource(this, scope);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(StatementBudgetListener.this);
+                close(scope);
+            }
+        });
+    }
+
+    private void check(StatementScope scope, String sql, int repeats) {
+        if (scope.getStatements() > properties.getMaxStatements()) {
+            throw new StatementBudgetExceededException(scope.getName() + ": more than "
+                                            + properties.getMaxStatements() + " statements");
+        }
+        if (repeats > properties.getMaxRepeats()) {
+            throw new StatementBudgetExceededException(scope.getName() + ": statement repeated "
+                                            + repeats + " times (N+1?): " + sql);
+        }
+    }
+
+    private void report(StatementScope scope) {
+        if (!properties.isEnabled() || scope.getStatements() == 0) {
+            return;
+        }
+
+        boolean overBudget = scope.getStatements() > properties.getMaxStatements();
+        boolean repeated = scope.getMostRepeatedCount() > properties.getMaxRepeats();
+        if (overBudget || repeated) {
+            log.warn("{}: {} statements in {} ms (budget {}), most repeated {} times (limit {}): {}",
+                                            scope.getName(), scope.getStatements(), scope.getElapsedNanos() / 1_000_000,
+                                            properties.getMaxStatements(), scope.getMostRepeatedCount(),
+                                            properties.getMaxRepeats(), scope.getMostRepeatedSql());
+        } else if (log.isDebugEnabled()) {
+            log.debug("{}: {} statements in {} ms", scope.getName(), scope.getStatements(),
+                                            scope.getElapsedNanos() / 1_000_000);
+        }
+    }
+}
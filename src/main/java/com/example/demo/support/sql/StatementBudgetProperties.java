@@ -0,0 +1,32 @@
+package com.example.demo.support.sql;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 요청/트랜잭션 당 SQL 실행 예산 (demo.sql.budget.*).
+ */
+@Component
+@ConfigurationProperties(prefix = "demo.sql.budget")
+@Getter
+@Setter
+public class StatementBudgetProperties {
+
+    public enum Mode {
+        /** 범위가 끝날 때 경고 로그 */
+        WARN,
+        /** 예산을 넘는 SQL 을 실행하기 전에 예외 */
+        FAIL
+    }
+
+    private boolean enabled = true;
+    private Mode mode = Mode.WARN;
+
+    /** 한 범위에서 허용하는 SQL 실행 수 */
+    private int maxStatements = 50;
+
+    /** 같은 SQL 이 이 횟수를 넘게 반복되면 N+1 로 본다. */
+    private int maxRepeats = 10;
+}
@@ -0,0 +1,48 @@
+package com.example.demo.support.sql;
+
+import java.util.HashMap;
+import java.util.Map;
+import lombok.Getter;
+
+/**
+ * 하나의 HTTP 요청 또는 트랜잭션 동안 실행된 SQL 집계. 한 스레드에서만 쓴다.
+ */
+@Getter
+public class StatementScope {
+
+    /** 서로 다른 SQL 이 너무 많을 때 메모리를 막기 위한 상한 */
+    private static final int MAX_SHAPES = 1000;
+
+    private final String name;
+    private int statements;
+    private long elapsedNanos;
+    private final Map<String, Integer> repeats = new HashMap<>();
+
+    private String mostRepeatedSql;
+    private int mostRepeatedCount;
+
+    public StatementScope(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return 이번 SQL 의 이 범위 내 반복 횟수
+     */
+    int add(String sql) {
+        statements++;
+        Integer count = repeats.get(sql);
+        int next = count == null ? 1 : count + 1;
+        if (count != null || repeats.size() < MAX_SHAPES) {
+            repeats.put(sql, next);
+        }
+        if (next > mostRepeatedCount) {
+            mostRepeatedCount = next;
+            mostRepeatedSql = sql;
+        }
+        return next;
+    }
+
+    void addElapsed(long nanos) {
+        elapsedNanos += nanos;
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.demo.bulk;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.example.demo.bulk.MemberBulkJob.Status;
+import com.example.demo.dto.MemberBulkCommand;
+import com.example.demo.dto.MemberBulkCommand.Operation;
+import com.example.demo.dto.MemberSearchCondition;
+import com.example.demo.entity.Member;
+import com.example.demo.repository.MemberRepository;
+import com.example.demo.stats.TeamStatsService;
+
+/**
+ * chunk 마다 별도 트랜잭션으로 커밋하므로 롤백 테스트 대신 실제로 커밋하고 끝나면 만든 회원만 지운다.
+ * 같은 DB 를 다른 테스트와 같이 쓰므로 username 앞에 테스트마다 다른 접두어를 붙이고 조건도 그 접두어로 건다.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class MemberBulkServiceTest {
+
+    static final int CHUNK_SIZE = 2;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamStatsService teamStatsService;
+
+    @Autowired
+    MemberBulkService memberBulkService;
+
+    String prefix = "bulk-" + UUID.randomUUID().toString().substring(0, 8) + "-";
+    List<Long> ids = new ArrayList<>();
+    List<MemberBulkService> services = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (int i = 1; i <= 5; i++) {
+                Member member = new Member(prefix + i, i * 10);
+                em.persist(member);
+                ids.add(member.getId());
+            }
+        });
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        services.forEach(MemberBulkService::shutdown);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                                        em.createQuery("delete from Member m where m.username like :prefix")
+                                          .setParameter("prefix", prefix + "%")
+                                          .executeUpdate());
+    }
+
+    @Test
+    public void commitsEachChunk() throws InterruptedException {
+        List<Long> affectedPerChunk = new ArrayList<>();
+        MemberBulkService service = service(recording(affectedPerChunk, null));
+
+        MemberBulkJob job = await(service.submit(addAge(), CHUNK_SIZE, ids.get(0)));
+
+        assertThat(job.getStatus()).isEqualTo(Status.COMPLETED);
+        assertThat(affectedPerChunk).containsExactlyElementsOf(expectedPerChunk(ids.get(0), job.getToId()));
+        assertThat(job.getChunks()).isEqualTo(affectedPerChunk.size());
+        assertThat(job.getAffectedRows()).isEqualTo(5);
+        assertThat(job.getNextFromId()).isEqualTo(job.getToId());
+        assertThat(ages()).containsExactly(11, 21, 31, 41, 51);
+    }
+
+    @Test
+    public void cancelBetweenChunksThenResume() throws InterruptedException {
+        AtomicReference<MemberBulkJob> running = new AtomicReference<>();
+        CountDownLatch submitted = new CountDownLatch(1);
+        List<Long> affectedPerChunk = new ArrayList<>();
+        // 첫 chunk 가 커밋되기 직전에 취소를 요청한다
+        MemberBulkService service = service(recording(affectedPerChunk, () -> {
+            submitted.await(5, TimeUnit.SECONDS);
+            running.get().cancel();
+        }));
+
+        running.set(service.submit(addAge(), CHUNK_SIZE, ids.get(0)));
+        submitted.countDown();
+        MemberBulkJob cancelled = await(running.get());
+
+        // 진행 중인 chunk 는 끝까지 커밋하고 다음 chunk 부터 멈춘다
+        assertThat(cancelled.getStatus()).isEqualTo(Status.CANCELLED);
+        assertThat(cancelled.getChunks()).isEqualTo(1);
+        assertThat(cancelled.getNextFromId()).isEqualTo(ids.get(0) + CHUNK_SIZE);
+        assertThat(cancelled.getAffectedRows()).isEqualTo(affectedPerChunk.get(0));
+
+        // nextFromId 부터 이어서 하면 이미 커밋된 chunk 에는 다시 더하지 않는다
+        MemberBulkJob resumed = await(memberBulkService.submit(addAge(), CHUNK_SIZE, cancelled.getNextFromId()));
+        assertThat(resumed.getStatus()).isEqualTo(Status.COMPLETED);
+        assertThat(cancelled.getAffectedRows() + resumed.getAffectedRows()).isEqualTo(5);
+        assertThat(ages()).containsExactly(11, 21, 31, 41, 51);
+    }
+
+    @Test
+    public void deleteInChunks() throws InterruptedException {
+        MemberBulkCommand delete = MemberBulkCommand.builder()
+                                        .condition(MemberSearchCondition.builder().usernamePrefix(prefix).ageGoe(30).build())
+                                        .operation(Operation.DELETE)
+                                        .build();
+
+        MemberBulkJob job = await(memberBulkService.submit(delete, CHUNK_SIZE, ids.get(0)));
+
+        assertThat(job.getStatus()).isEqualTo(Status.COMPLETED);
+        assertThat(job.getAffectedRows()).isEqualTo(3);
+        assertThat(ages()).containsExactly(10, 20);
+    }
+
+    private MemberBulkCommand addAge() {
+        return MemberBulkCommand.builder()
+                                        .condition(MemberSearchCondition.builder().usernamePrefix(prefix).build())
+                                        .operation(Operation.ADD_AGE)
+                                        .ageDelta(1)
+                                        .build();
+    }
+
+    /**
+     * 실제 저장소에 위임하면서 chunk 마다 반영 건수를 모은다. afterChunk 는 chunk 트랜잭션이 커밋되기 전에 실행된다.
+     */
+    private MemberRepository recording(List<Long> affectedPerChunk, Step afterChunk) {
+        MemberRepository repository = mock(MemberRepository.class, delegatesTo(memberRepository));
+        doAnswer(invocation -> {
+            long affected = memberRepository.bulkChunk(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2));
+            affectedPerChunk.add(affected);
+            if (afterChunk != null) {
+                afterChunk.run();
+            }
+            return affected;
+        }).when(repository).bulkChunk(any(), anyLong(), anyLong());
+        return repository;
+    }
+
+    private MemberBulkService service(MemberRepository repository) {
+        MemberBulkService service = new MemberBulkService(repository, teamStatsService, new MemberBulkProperties(), transactionManager);
+        services.add(service);
+        return service;
+    }
+
+    /** [fromId, toId) 를 CHUNK_SIZE 로 나눈 범위마다 들어 있는 회원 수 */
+    private List<Long> expectedPerChunk(long fromId, long toId) {
+        List<Long> expected = new ArrayList<>();
+        for (long from = fromId; from < toId; from += CHUNK_SIZE) {
+            long chunkFrom = from;
+            long chunkTo = Math.min(toId, from + CHUNK_SIZE);
+            expected.add(ids.stream().filter(id -> id >= chunkFrom && id < chunkTo).count());
+        }
+        return expected;
+    }
+
+    private List<Integer> ages() {
+        return em.createQuery("select m.age from Member m where m.username like :prefix order by m.id", Integer.class)
+                 .setParameter("prefix", prefix + "%")
+                 .getResultList();
+    }
+
+    private static MemberBulkJob await(MemberBulkJob job) throws InterruptedException {
+        for (int i = 0; i < 500 && !job.isDone(); i++) {
+            Thread.sleep(10);
+        }
+        assertThat(job.isDone()).isTrue();
+        return job;
+    }
+
+    private interface Step {
+        void run() throws InterruptedException;
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.demo.bulk;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.example.demo.bulk.MemberImportService.Format;
+import com.example.demo.entity.Member;
+import com.example.demo.entity.Team;
+
+/**
+ * batch 마다 별도 트랜잭션으로 커밋하므로 롤백 테스트 대신 실제로 커밋하고 끝나면 만든 것만 지운다.
+ * 같은 DB 를 다른 테스트와 같이 쓰므로 username, 팀 이름 앞에 테스트마다 다른 접두어를 붙인다.
+ * batch 경계를 짧은 입력으로 확인할 수 있도록 batch 크기는 2 로 둔다.
+ */
+@SpringBootTest(properties = "demo.import.batch-size=2")
+@ActiveProfiles("test")
+public class MemberImportServiceTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberImportService memberImportService;
+
+    String prefix = "imp-" + UUID.randomUUID().toString().substring(0, 8) + "-";
+    List<Long> teamIds = new ArrayList<>();
+
+    @AfterEach
+    public void cleanUp() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            em.createQuery("delete from Member m where m.username like :prefix")
+              .setParameter("prefix", prefix + "%")
+              .executeUpdate();
+            if (!teamIds.isEmpty()) {
+                em.createQuery("delete from TeamStats s where s.teamId in :teamIds").setParameter("teamIds", teamIds).executeUpdate();
+                em.createQuery("delete from Team t where t.id in :teamIds").setParameter("teamIds", teamIds).executeUpdate();
+            }
+        });
+    }
+
+    @Test
+    public void importCsv() throws IOException {
+        Team teamA = new Team(prefix + "teamA");
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            em.persist(teamA);
+            em.persist(new Member(prefix + "existing", 10, teamA));
+        });
+        teamIds.add(teamA.getId());
+
+        String csv = "username,age,team_name\n"
+                                        + prefix + "member1,10," + prefix + "teamA\n"
+                                        + prefix + "member2,20,\n"
+                                        + prefix + "member1,30," + prefix + "teamA\n" // 같은 파일 안 중복
+                                        + prefix + "existing,40," + prefix + "teamA\n" // DB 에 이미 있음
+                                        + prefix + "member3,x," + prefix + "teamA\n"
+                                        + prefix + "member4,50," + prefix + "teamZ\n"
+                                        + "\"" + prefix + "member,5\",60," + prefix + "teamA\n";
+
+        MemberImportReport report = memberImportService.importMembers(
+                                        new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), Format.CSV);
+
+        assertThat(report).extracting("rows", "inserted", "duplicates", "failed").containsExactly(7L, 3L, 2L, 2L);
+        assertThat(report.getErrors()).extracting("line").containsExactlyInAnyOrder(4L, 5L, 6L, 7L);
+
+        assertThat(em.createQuery("select m.username from Member m where m.username like :prefix order by m.username", String.class)
+                     .setParameter("prefix", prefix + "%")
+                     .getResultList())
+                                        .containsExactly(prefix + "existing", prefix + "member,5", prefix + "member1", prefix + "member2");
+        Member member1 = em.createQuery("select m from Member m join fetch m.team where m.username = :username", Member.class)
+                           .setParameter("username", prefix + "member1")
+                           .getSingleResult();
+        assertThat(member1.getAge()).isEqualTo(10);
+        assertThat(member1.getTeam().getName()).isEqualTo(prefix + "teamA");
+    }
+
+    @Test
+    public void importNdjson() throws IOException {
+        String ndjson = "{\"username\":\"" + prefix + "member1\",\"age\":10}\n"
+                                        + "{\"username\":\"" + prefix + "member2\"}\n"
+                                        + "not json\n";
+
+        MemberImportReport report = memberImportService.importMembers(
+                                        new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), Format.NDJSON);
+
+        assertThat(report).extracting("rows", "inserted", "failed").containsExactly(3L, 1L, 2L);
+        assertThat(report.getErrors()).extracting("line").containsExactly(2L, 3L);
+    }
+
+    @Test
+    public void duplicatesAcrossBatches() throws IOException {
+        String csv = prefix + "member1,10\n"
+                                        + prefix + "member2,20\n"
+                                        + prefix + "member1,30\n" // 앞 batch 에서 이미 커밋됨
+                                        + prefix + "member3,40\n";
+
+        MemberImportReport report = memberImportService.importMembers(
+                                        new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), Format.CSV);
+
+        assertThat(report).extracting("rows", "inserted", "duplicates", "failed").containsExactly(4L, 3L, 1L, 0L);
+        assertThat(report.getErrors()).extracting("line", "message").containsExactly(tuple(3L, "duplicate username"));
+        assertThat(em.createQuery("select m.age from Member m where m.username = :username", Integer.class)
+                     .setParameter("username", prefix + "member1")
+                     .getSingleResult()).isEqualTo(10);
+    }
+
+    @Test
+    public void failedBatchIsReportedPerRow() throws IOException {
+        String tooLong = prefix + "x".repeat(300); // username 컬럼 길이를 넘어서 batch insert 가 실패한다
+        String csv = prefix + "member1,10\n"
+                                        + prefix + "member2,20\n"
+                                        + tooLong + ",30\n"
+                                        + prefix + "member3,40\n"
+                                        + prefix + "member4,50\n";
+
+        MemberImportReport report = memberImportService.importMembers(
+                                        new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), Format.CSV);
+
+        // 실패한 batch 의 행만 모두 실패로 남고 앞뒤 batch 는 커밋된다
+        assertThat(report).extracting("rows", "inserted", "failed").containsExactly(5L, 3L, 2L);
+        assertThat(report.getErrors()).extracting("line", "username").containsExactly(tuple(3L, tooLong), tuple(4L, prefix + "member3"));
+        assertThat(report.getErrors()).allSatisfy(error -> assertThat(error.getMessage()).startsWith("batch failed: "));
+        assertThat(em.createQuery("select m.username from Member m where m.username like :prefix order by m.username", String.class)
+                     .setParameter("prefix", prefix + "%")
+                     .getResultList())
+                                        .containsExactly(prefix + "member1", prefix + "member2", prefix + "member4");
+    }
+
+    @Test
+    public void ambiguousTeam() throws IOException {
+        Team first = new Team(prefix + "teamA");
+        Team second = new Team(prefix + "teamA");
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            em.persist(first);
+            em.persist(second);
+        });
+        teamIds.add(first.getId());
+        teamIds.add(second.getId());
+
+        String csv = prefix + "member1,10," + prefix + "teamA\n";
+
+        MemberImportReport report = memberImportService.importMembers(
+                                        new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), Format.CSV);
+
+        assertThat(report).extracting("inserted", "failed").containsExactly(0L, 1L);
+        assertThat(report.getErrors()).extracting("message").containsExactly("ambiguous team: " + prefix + "teamA (2 teams)");
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.demo.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import com.example.demo.dto.EstimatedPage;
+import com.example.demo.dto.EstimatedPage.Source;
+import com.example.demo.dto.MemberKeysetPage;
+import com.example.demo.dto.MemberSearchCondition;
+import com.example.demo.dto.MemberTeamDto;
+import com.example.demo.repository.MemberJpaRepository;
+import com.example.demo.repository.MemberRepository;
+import com.example.demo.support.DataVersion;
+import com.example.demo.support.PageTokenCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * 저장소는 목으로 두고 요청/응답 처리(헤더, 상태 코드, 본문 형식)만 확인한다.
+ */
+public class MemberControllerTest {
+
+    MemberJpaRepository memberJpaRepository = mock(MemberJpaRepository.class);
+    MemberRepository memberRepository = mock(MemberRepository.class);
+    DataVersion dataVersion = mock(DataVersion.class);
+    MockMvc mockMvc;
+
+    @BeforeEach
+    public void setUp() {
+        when(dataVersion.current()).thenReturn(new DataVersion.Stamp(1, 0));
+        MemberController controller = new MemberController(memberJpaRepository, memberRepository,
+                                        new PageTokenCodec(""), dataVersion, new ObjectMapper());
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                                        .setControllerAdvice(new ApiExceptionHandler())
+                                        .setCustomArgumentResolvers(new PageableHandlerMethodArgumentResolver())
+                                        .build();
+    }
+
+    @Test
+    public void estimatedPageHasNoETag() throws Exception {
+        estimate(false, Source.SAMPLED);
+
+        mockMvc.perform(get("/v3/members").param("count", "ESTIMATE"))
+               .andExpect(status().isOk())
+               .andExpect(header().doesNotExist(HttpHeaders.ETAG))
+               .andExpect(header().doesNotExist(MemberController.PAGE_TOKEN_HEADER))
+               .andExpect(jsonPath("$.exact").value(false));
+    }
+
+    @Test
+    public void exactEstimatePageHasETag() throws Exception {
+        estimate(true, Source.CACHED);
+
+        String etag = mockMvc.perform(get("/v3/members").param("count", "ESTIMATE"))
+                             .andExpect(status().isOk())
+                             .andExpect(header().exists(MemberController.PAGE_TOKEN_HEADER))
+                             .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/v3/members").param("count", "ESTIMATE").header(HttpHeaders.IF_NONE_MATCH, etag))
+               .andExpect(status().isNotModified())
+               .andExpect(content().string(""));
+    }
+
+    @Test
+    public void keysetSizeIsClamped() throws Exception {
+        mockMvc.perform(get("/v4/members").param("size", String.valueOf(Integer.MAX_VALUE)))
+               .andExpect(status().isOk());
+
+        verify(memberRepository).searchKeyset(any(MemberSearchCondition.class), isNull(), eq(MemberKeysetPage.MAX_SIZE));
+    }
+
+    @Test
+    public void invalidArgumentIsBadRequest() throws Exception {
+        when(memberRepository.searchKeyset(any(MemberSearchCondition.class), any(), eq(0)))
+                                        .thenThrow(new IllegalArgumentException("size must be positive: 0"));
+
+        mockMvc.perform(get("/v4/members").param("size", "0"))
+               .andExpect(status().isBadRequest())
+               .andExpect(jsonPath("$.message").value("size must be positive: 0"));
+
+        String ids = LongStream.rangeClosed(1, MemberController.MAX_BATCH_IDS + 1)
+                               .mapToObj(String::valueOf)
+                               .collect(Collectors.joining(",", "[", "]"));
+        mockMvc.perform(post("/members/batch").contentType(MediaType.APPLICATION_JSON).content(ids))
+               .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void countTimeoutIsUnavailable() throws Exception {
+        when(memberRepository.searchPageParallel(any(MemberSearchCondition.class), any()))
+                                        .thenThrow(new QueryTimeoutException("count query exceeded PT2S"));
+
+        mockMvc.perform(get("/v3/members").param("parallelCount", "true"))
+               .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    public void streamIsNewlineDelimitedJson() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<MemberTeamDto> consumer = invocation.getArgument(1);
+            consumer.accept(new MemberTeamDto(1L, "member1", 10, 1L, "teamA"));
+            consumer.accept(new MemberTeamDto(2L, "member2", 20, null, null));
+            return 2L;
+        }).when(memberJpaRepository).searchStream(any(MemberSearchCondition.class), any());
+
+        MvcResult started = mockMvc.perform(get("/v1/members/stream"))
+                                   .andExpect(request().asyncStarted())
+                                   .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(started))
+                             .andExpect(status().isOk())
+                             .andReturn().getResponse().getContentAsString();
+        assertThat(body).endsWith("\n");
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(2).allSatisfy(line -> assertThat(line).startsWith("{"));
+        assertThat(new ObjectMapper().readTree(lines[0]).get("username").asText()).isEqualTo("member1");
+        assertThat(new ObjectMapper().readTree(lines[1]).get("teamId").isNull()).isTrue();
+    }
+
+    @Test
+    public void emptyStream() throws Exception {
+        when(memberJpaRepository.searchStream(any(MemberSearchCondition.class), any())).thenReturn(0L);
+
+        MvcResult started = mockMvc.perform(get("/v1/members/stream")).andReturn();
+
+        assertThat(mockMvc.perform(asyncDispatch(started)).andReturn().getResponse().getContentAsString()).isEmpty();
+    }
+
+    private void estimate(boolean exact, Source source) {
+        List<MemberTeamDto> content = List.of(new MemberTeamDto(1L, "member1", 10, null, null));
+        when(memberRepository.searchPageEstimated(any(MemberSearchCondition.class), any()))
+                                        .thenReturn(new EstimatedPage<>(content, PageRequest.of(0, 20), 1000, exact,
+                                                                        exact ? 0 : 50, source));
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.demo.export;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.example.demo.entity.Member;
+import com.example.demo.export.MemberExportJob.Status;
+
+/**
+ * 별도 스레드, 별도 트랜잭션에서 읽으므로 회원을 실제로 커밋하고 끝나면 만든 회원만 지운다.
+ * 작업 스레드를 테스트가 쥐고 있어서 시작 전에 취소할 수 있다.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class MemberExportServiceTest {
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path dir;
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    MemberExportService service;
+    List<Long> created = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        MemberExportProperties properties = new MemberExportProperties();
+        properties.setDirectory(dir.toString());
+        properties.setCheckpointRows(2);
+        service = new MemberExportService(entityManagerFactory, properties, executor);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (int i = 0; i < 5; i++) {
+                Member member = new Member("export" + i, 10 + i);
+                em.persist(member);
+                em.flush();
+                created.add(member.getId());
+            }
+        });
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        executor.shutdownNow();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                                        em.createQuery("delete from Member m where m.id in :ids").setParameter("ids", created).executeUpdate());
+    }
+
+    @Test
+    public void resumeAfterCancel() throws Exception {
+        CountDownLatch gate = new CountDownLatch(1);
+        executor.execute(() -> awaitQuietly(gate)); // 작업보다 먼저 스레드를 잡아 둔다
+
+        MemberExportJob job = service.submit(MemberExportFormat.CSV);
+        service.cancel(job.getId());
+        gate.countDown();
+        awaitDone(job);
+        assertThat(job.getStatus()).isEqualTo(Status.CANCELLED);
+
+        MemberExportJob resumed = service.resume(job.getId()).orElseThrow();
+        awaitDone(resumed);
+
+        assertThat(resumed.getStatus()).isEqualTo(Status.COMPLETED);
+        assertExportedOnce(resumed);
+        assertThatThrownBy(() -> service.resume(job.getId())).hasMessageContaining("already completed");
+    }
+
+    @Test
+    public void resumeAfterFailure() throws Exception {
+        // 두 행까지 checkpoint 를 남기고, 그 뒤에 쓰다 만 행이 있는 상태에서 죽은 것처럼 만든다
+        String id = UUID.randomUUID().toString();
+        Path file = dir.resolve("members-" + id + ".csv.gz");
+        List<Object[]> firstRows = em.createQuery("select m.id, m.username, m.age, t.id, t.name from Member m left join m.team t order by m.id",
+                                                  Object[].class)
+                                     .setMaxResults(2)
+                                     .getResultList();
+        long offset;
+        try (MemberExportWriter writer = new MemberExportWriter(file, MemberExportFormat.CSV, 0)) {
+            writer.writeHeader();
+            for (Object[] row : firstRows) {
+                writer.writeRow(row);
+            }
+            offset = writer.checkpoint();
+            writer.writeRow(new Object[] {Long.MAX_VALUE, "garbage", 0, null, null});
+        }
+        long lastId = (Long) firstRows.get(firstRows.size() - 1)[0];
+        new MemberExportCheckpoint(MemberExportFormat.CSV, lastId, firstRows.size(), offset, false)
+                                        .store(dir.resolve("members-" + id + ".checkpoint"));
+
+        MemberExportJob resumed = service.resume(id).orElseThrow();
+        awaitDone(resumed);
+
+        assertThat(resumed.getStatus()).isEqualTo(Status.COMPLETED);
+        assertThat(resumed.getResumedFromMemberId()).isEqualTo(lastId);
+        assertExportedOnce(resumed);
+    }
+
+    @Test
+    public void resumeUnknownExport() {
+        assertThat(service.resume(UUID.randomUUID().toString())).isEmpty();
+        assertThatThrownBy(() -> service.resume("../etc")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /** 헤더가 한 번, 시작할 때의 회원이 member_id 순서로 한 번씩 */
+    private void assertExportedOnce(MemberExportJob job) throws IOException {
+        List<String> lines;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                                        new GZIPInputStream(Files.newInputStream(Path.of(job.getFile()))), StandardCharsets.UTF_8))) {
+            lines = reader.lines().collect(Collectors.toList());
+        }
+        assertThat(lines.get(0)).startsWith("member_id,");
+
+        List<Long> exported = lines.subList(1, lines.size()).stream()
+                                   .map(line -> Long.parseLong(line.substring(0, line.indexOf(','))))
+                                   .collect(Collectors.toList());
+        List<Long> expected = em.createQuery("select m.id from Member m where m.id <= :maxId order by m.id", Long.class)
+                                .setParameter("maxId", job.getMaxMemberId())
+                                .getResultList();
+        assertThat(exported).isEqualTo(expected).containsAll(created);
+        assertThat(job.getRows()).isEqualTo(expected.size());
+    }
+
+    private static void awaitDone(MemberExportJob job) throws InterruptedException {
+        for (int i = 0; i < 1000 && !job.isDone(); i++) {
+            Thread.sleep(10);
+        }
+        assertThat(job.isDone()).isTrue();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
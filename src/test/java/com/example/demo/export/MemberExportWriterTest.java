@@ -0,0 +1,61 @@
+package com.example.demo.export;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.StreamUtils;
+
+public class MemberExportWriterTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void resumeFromCheckpoint() throws IOException {
+        Path file = dir.resolve("members.csv.gz");
+
+        // 1 까지 checkpoint, 2 는 쓰다가 중단
+        long checkpoint;
+        try (MemberExportWriter writer = new MemberExportWriter(file, MemberExportFormat.CSV, 0)) {
+            writer.writeHeader();
+            writer.writeRow(new Object[] {1L, "member1", 10, 1L, "teamA"});
+            checkpoint = writer.checkpoint();
+            writer.writeRow(new Object[] {2L, "member2", 20, null, null});
+        }
+
+        // checkpoint 이후 내용은 버리고 2 부터 다시
+        MemberExportWriter writer = new MemberExportWriter(file, MemberExportFormat.CSV, checkpoint);
+        writer.writeRow(new Object[] {2L, "member2", 20, null, null});
+        writer.writeRow(new Object[] {3L, "a,\"b\"", 30, 2L, "teamB"});
+        long length = writer.finish();
+
+        assertThat(Files.size(file)).isEqualTo(length);
+        assertThat(read(file)).isEqualTo("member_id,username,age,team_id,team_name\n"
+                                        + "1,member1,10,1,teamA\n"
+                                        + "2,member2,20,,\n"
+                                        + "3,\"a,\"\"b\"\"\",30,2,teamB\n");
+    }
+
+    @Test
+    public void checkpointFile() throws IOException {
+        Path path = dir.resolve("members.checkpoint");
+        new MemberExportCheckpoint(MemberExportFormat.BINARY, 42L, 40L, 1234L, false).store(path);
+
+        MemberExportCheckpoint loaded = MemberExportCheckpoint.load(path);
+        assertThat(loaded).extracting("format", "lastMemberId", "rows", "bytes", "completed")
+                                        .containsExactly(MemberExportFormat.BINARY, 42L, 40L, 1234L, false);
+        assertThat(MemberExportCheckpoint.load(dir.resolve("none.checkpoint"))).isNull();
+    }
+
+    private String read(Path file) throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            return StreamUtils.copyToString(in, StandardCharsets.UTF_8);
+        }
+    }
+}
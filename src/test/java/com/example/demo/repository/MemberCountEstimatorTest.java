@@ -0,0 +1,100 @@
+package com.example.demo.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import com.example.demo.dto.EstimatedPage.Source;
+import com.example.demo.dto.MemberSearchCondition;
+import com.example.demo.repository.MemberCountEstimator.CountEstimate;
+import com.example.demo.support.DataVersion;
+
+public class MemberCountEstimatorTest {
+
+    DataVersion dataVersion = mock(DataVersion.class);
+    MemberCountEstimator estimator = new MemberCountEstimator(dataVersion, mock(PlatformTransactionManager.class), 20_000, 4, 1);
+    MemberCountEstimator.Sampler everyTenth = (from, to) -> new long[] {to - from + 1, to / 10 - (from - 1) / 10};
+
+    @BeforeEach
+    public void setUp() {
+        when(dataVersion.current()).thenReturn(new DataVersion.Stamp(1, 0));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        estimator.shutdown();
+    }
+
+    @Test
+    public void sampledThenWarmed() throws InterruptedException {
+        MemberSearchCondition condition = MemberSearchCondition.builder().ageGoe(10).build();
+        CountDownLatch counted = new CountDownLatch(1);
+
+        // id 1 ~ 1,000,000 중 10 의 배수만 조건에 맞는다
+        CountEstimate sampled = estimator.estimate(condition, 1L, 1_000_000L, everyTenth, () -> {
+            counted.countDown();
+            return 100_000L;
+        });
+        assertThat(sampled.getSource()).isEqualTo(Source.SAMPLED);
+        assertThat(sampled.isExact()).isFalse();
+        assertThat(sampled.getTotal()).isEqualTo(100_000L);
+        assertThat(sampled.getErrorBound()).isBetween(1L, 10_000L);
+
+        assertThat(counted.await(5, TimeUnit.SECONDS)).isTrue();
+        CountEstimate warmed = awaitSource(condition, Source.CACHED);
+        assertThat(warmed.getTotal()).isEqualTo(100_000L);
+        assertThat(warmed.getErrorBound()).isZero();
+
+        // 데이터가 바뀌면 다시 표본
+        when(dataVersion.current()).thenReturn(new DataVersion.Stamp(1, 1));
+        assertThat(estimator.estimate(condition, 1L, 1_000_000L, everyTenth, () -> 100_000L).getSource())
+                                        .isEqualTo(Source.SAMPLED);
+    }
+
+    @Test
+    public void smallRangeIsCounted() {
+        CountEstimate estimate = estimator.estimate(new MemberSearchCondition(), 1L, 1_000L, everyTenth, () -> {
+            throw new AssertionError("not needed");
+        });
+        assertThat(estimate).extracting("total", "errorBound", "source").containsExactly(100L, 0L, Source.COUNTED);
+
+        // 빈 테이블
+        MemberSearchCondition other = MemberSearchCondition.builder().ageLoe(10).build();
+        assertThat(estimator.estimate(other, null, null, everyTenth, () -> 0L).getTotal()).isZero();
+    }
+
+    @Test
+    public void errorBound() {
+        assertThat(MemberCountEstimator.errorBound(0, 20_000, 1_000_000)).isEqualTo(150);
+        assertThat(MemberCountEstimator.errorBound(20_000, 20_000, 1_000_000)).isZero();
+        assertThat(MemberCountEstimator.errorBound(2_000, 20_000, 1_000_000)).isEqualTo(4117);
+    }
+
+    @Test
+    public void errorBoundBetweenWindows() {
+        // 구간마다 비율이 같으면 행 단위 독립 추출 구간
+        assertThat(MemberCountEstimator.errorBound(new double[] {0.1, 0.1, 0.1, 0.1}, 2_000, 20_000, 1_000_000))
+                                        .isEqualTo(4117);
+        // 같은 2,000 건이라도 구간 절반에 몰려 있으면 (id 순서와 상관 있는 조건) 훨씬 넓다
+        assertThat(MemberCountEstimator.errorBound(new double[] {0, 0.2, 0, 0.2}, 2_000, 20_000, 1_000_000))
+                                        .isEqualTo(182_323);
+        assertThat(MemberCountEstimator.t975(3)).isEqualTo(3.182);
+        assertThat(MemberCountEstimator.t975(100)).isEqualTo(1.96);
+    }
+
+    private CountEstimate awaitSource(MemberSearchCondition condition, Source source) throws InterruptedException {
+        for (int i = 0; i < 50; i++) {
+            CountEstimate estimate = estimator.estimate(condition, 1L, 1_000_000L, everyTenth, () -> 100_000L);
+            if (estimate.getSource() == source) {
+                return estimate;
+            }
+            Thread.sleep(100);
+        }
+        throw new AssertionError("estimate did not become " + source);
+    }
+}
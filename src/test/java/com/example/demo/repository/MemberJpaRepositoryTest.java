@@ -2,8 +2,11 @@ package com.example.demo.repository;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import java.util.List;
+import java.util.function.Supplier;
 import javax.persistence.EntityManager;
 import javax.transaction.Transactional;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -24,6 +27,9 @@ public class MemberJpaRepositoryTest {
     @Autowired
     MemberJpaRepository memberJpaRepository;
     
+    @Autowired
+    MemberRepository memberRepository;
+    
     @Test
     public void basicTest() {
         Member member = new Member("member1", 10);
@@ -82,4 +88,59 @@ public class MemberJpaRepositoryTest {
         
         assertThat(result).extracting("username").containsExactly("member4");
     }
+    
+    @Test
+    public void loadMembersWithTeamStatementCount() {
+        int teamCount = 10;
+        saveMembers(teamCount, 1_000);
+        
+        // team 프록시는 @BatchSize 로 한 번에 초기화: 회원 1 + 팀 1
+        assertThat(statements(() -> touchTeams(memberJpaRepository.findAll()))).isEqualTo(2);
+        assertThat(statements(() -> touchTeams(memberJpaRepository.findAllWithTeam()))).isEqualTo(1);
+        assertThat(statements(() -> touchTeams(memberRepository.findAllWithTeam()))).isEqualTo(1);
+        
+        // Team.members 도 @BatchSize 로 한 번에: 팀 1 + 회원 1
+        long teamMembers = statements(() -> {
+            List<Team> teams = em.createQuery("select t from Team t", Team.class).getResultList();
+            assertThat(teams.stream().mapToInt(t -> t.getMembers().size()).sum()).isEqualTo(1_000);
+            return teams;
+        });
+        assertThat(teamMembers).isEqualTo(2);
+    }
+    
+    private void saveMembers(int teamCount, int memberCount) {
+        Team[] teams = new Team[teamCount];
+        for (int i = 0; i < teamCount; i++) {
+            teams[i] = new Team("team" + i);
+            em.persist(teams[i]);
+        }
+        for (int i = 0; i < memberCount; i++) {
+            em.persist(new Member("member" + i, i % 100, teams[i % teamCount]));
+        }
+        em.flush();
+        em.clear();
+    }
+    
+    private static List<Member> touchTeams(List<Member> members) {
+        assertThat(members).hasSize(1_000);
+        members.forEach(m -> m.getTeam().getName());
+        return members;
+    }
+    
+    /**
+     * 영속성 컨텍스트를 비운 상태에서 실행한 JDBC statement 수.
+     */
+    private long statements(Supplier<?> work) {
+        em.clear();
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        boolean enabled = statistics.isStatisticsEnabled();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        try {
+            work.get();
+            return statistics.getPrepareStatementCount();
+        } finally {
+            statistics.setStatisticsEnabled(enabled);
+        }
+    }
 }
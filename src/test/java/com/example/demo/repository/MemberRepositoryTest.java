@@ -1,7 +1,10 @@
 package com.example.demo.repository;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.assertj.core.api.Assertions.tuple;
 import java.util.List;
+import java.util.stream.Collectors;
 import javax.persistence.EntityManager;
 import javax.transaction.Transactional;
 import org.junit.jupiter.api.Test;
@@ -9,7 +12,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ActiveProfiles;
+import com.example.demo.dto.EstimatedPage;
+import com.example.demo.dto.EstimatedPage.Source;
+import com.example.demo.dto.FacetedPage;
+import com.example.demo.dto.MemberBulkCommand;
+import com.example.demo.dto.MemberBulkCommand.Operation;
+import com.example.demo.dto.MemberKeysetPage;
 import com.example.demo.dto.MemberSearchCondition;
 import com.example.demo.dto.MemberTeamDto;
 import com.example.demo.entity.Member;
@@ -101,4 +111,259 @@ public class MemberRepositoryTest {
         
     }
     
+    @Test
+    public void searchKeyset() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member m1 = new Member("member1", 10, teamA);
+        Member m2 = new Member("member2", 20, teamA);
+
+        Member m3 = new Member("member3", 20, teamB);
+        Member m4 = new Member("member4", 40, teamB);
+
+        em.persist(m1);
+        em.persist(m2);
+        em.persist(m3);
+        em.persist(m4);
+        
+        MemberSearchCondition condition = new MemberSearchCondition();
+        
+        MemberKeysetPage first = memberRepository.searchKeyset(condition, null, 2);
+        assertThat(first.getContent()).extracting("username").containsExactly("member1", "member2");
+        assertThat(first.isHasNext()).isTrue();
+        
+        MemberKeysetPage second = memberRepository.searchKeyset(condition, first.getNextToken(), 2);
+        assertThat(second.getContent()).extracting("username").containsExactly("member3", "member4");
+        assertThat(second.isHasNext()).isFalse();
+        
+        MemberKeysetPage all = memberRepository.searchKeyset(condition, null, Integer.MAX_VALUE); // MAX_SIZE 로 줄인다
+        assertThat(all.getContent()).extracting("username").containsExactly("member1", "member2", "member3", "member4");
+        assertThat(all.isHasNext()).isFalse();
+    }
+    
+    @Test
+    public void searchPageCompiled() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member m1 = new Member("member1", 10, teamA);
+        Member m2 = new Member("member2", 20, teamA);
+
+        Member m3 = new Member("member3", 30, teamB);
+        Member m4 = new Member("member4", 40, teamB);
+
+        em.persist(m1);
+        em.persist(m2);
+        em.persist(m3);
+        em.persist(m4);
+        
+        MemberSearchCondition condition = MemberSearchCondition.builder()
+                                        .ageGoe(20)
+                                        .build();
+        PageRequest pageRequest = PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "age"));
+        
+        Page<MemberTeamDto> result = memberRepository.searchPageCompiled(condition, pageRequest);
+        
+        assertThat(result.getTotalElements()).isEqualTo(3);
+        assertThat(result.getContent()).extracting("username").containsExactly("member4", "member3");
+        assertThat(memberRepository.searchCompiled(condition)).extracting("username")
+                                        .containsExactlyInAnyOrderElementsOf(
+                                                memberRepository.search(condition).stream()
+                                                        .map(MemberTeamDto::getUsername)
+                                                        .collect(Collectors.toList()));
+    }
+    
+    @Test
+    public void searchPageParallelSkipsCount() {
+        for (int i = 0; i < 3; i++) {
+            em.persist(new Member("member" + i, 10 + i));
+        }
+        
+        // 페이지가 덜 찼으므로 count 결과를 기다리지 않는다 (보낸 count 는 다른 커넥션이라 이 트랜잭션의 행을 못 본다)
+        Page<MemberTeamDto> result = memberRepository.searchPageParallel(new MemberSearchCondition(), PageRequest.of(0, 10));
+        assertThat(result.getContent()).hasSize(3);
+        assertThat(result.getTotalElements()).isEqualTo(3);
+    }
+    
+    @Test
+    public void searchPageComplexByTeamName() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        
+        Page<MemberTeamDto> result = memberRepository.searchPageComplex(
+                                        MemberSearchCondition.builder().teamName("teamA").build(), pageRequest);
+        assertThat(result.getContent()).extracting("username").containsExactly("member1", "member2");
+        
+        Page<MemberTeamDto> unknown = memberRepository.searchPageComplex(
+                                        MemberSearchCondition.builder().teamName("teamZ").build(), pageRequest);
+        assertThat(unknown.getTotalElements()).isZero();
+    }
+    
+    @Test
+    public void bulkChunk() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        Member member3 = new Member("member3", 30, teamA);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        
+        MemberBulkCommand addAge = MemberBulkCommand.builder()
+                                        .condition(MemberSearchCondition.builder().teamName("teamA").ageGoe(20).build())
+                                        .operation(Operation.ADD_AGE)
+                                        .ageDelta(1)
+                                        .build();
+        
+        // member3 는 범위 밖
+        long affected = memberRepository.bulkChunk(addAge, member1.getId(), member3.getId());
+        assertThat(affected).isEqualTo(1);
+        
+        // bulkChunk 가 영속성 컨텍스트를 비웠으므로 DB 값을 다시 읽는다
+        assertThat(memberRepository.findById(member2.getId()).get().getAge()).isEqualTo(21);
+        assertThat(memberRepository.findById(member3.getId()).get().getAge()).isEqualTo(30);
+        assertThat(memberRepository.findMaxMemberId()).isEqualTo(member3.getId());
+    }
+    
+    @Test
+    public void bulkChunkRange() {
+        Member member1 = new Member("member1", 10);
+        Member member2 = new Member("member2", 20);
+        Member member3 = new Member("member3", 30);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        
+        MemberBulkCommand rename = MemberBulkCommand.builder()
+                                        .condition(MemberSearchCondition.builder().usernamePrefix("member").build())
+                                        .operation(Operation.SET_USERNAME)
+                                        .username("renamed")
+                                        .build();
+        MemberBulkCommand delete = MemberBulkCommand.builder()
+                                        .condition(MemberSearchCondition.builder().usernamePrefix("member").build())
+                                        .operation(Operation.DELETE)
+                                        .build();
+        
+        // fromId 는 포함, toId 는 제외
+        assertThat(memberRepository.bulkChunk(rename, member1.getId(), member2.getId())).isEqualTo(1);
+        assertThat(memberRepository.bulkChunk(delete, member2.getId(), member3.getId())).isEqualTo(1);
+        // 이미 바뀐 행은 조건에 맞지 않으므로 같은 범위를 다시 해도 반영되지 않는다
+        assertThat(memberRepository.bulkChunk(rename, member1.getId(), member2.getId())).isZero();
+        assertThat(memberRepository.bulkChunk(delete, member3.getId() + 1, member3.getId() + 10)).isZero();
+        
+        assertThat(memberRepository.findById(member1.getId()).get().getUsername()).isEqualTo("renamed");
+        assertThat(memberRepository.findById(member2.getId())).isEmpty();
+        assertThat(memberRepository.findById(member3.getId()).get().getUsername()).isEqualTo("member3");
+    }
+    
+    @Test
+    public void findMembersByIds() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        Member member3 = new Member("member3", 30);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.flush();
+        em.clear();
+        
+        // 영속성 컨텍스트에 있고 team 까지 로딩된 회원은 쿼리 없이 현재 상태 그대로
+        Member managed = em.find(Member.class, member2.getId());
+        assertThat(managed.getTeam().getName()).isEqualTo("teamA");
+        managed.setUsername("member2-changed");
+        
+        List<MemberTeamDto> result = memberRepository.findMembersByIds(
+                                        List.of(member3.getId(), -1L, member2.getId(), member1.getId(), member3.getId()));
+        
+        assertThat(result).extracting("username").containsExactly("member3", "member2-changed", "member1");
+        assertThat(result).extracting("teamName").containsExactly(null, "teamA", "teamA");
+    }
+    
+    @Test
+    public void searchPageFaceted() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 25, teamB));
+        em.persist(new Member("member4", 60, teamB));
+        em.persist(new Member("member5", 40, teamB));
+        
+        FacetedPage<MemberTeamDto> result = memberRepository.searchPageFaceted(
+                                        MemberSearchCondition.builder().ageGoe(20).build(), PageRequest.of(0, 2));
+        
+        assertThat(result.getContent()).hasSize(2);
+        assertThat(result.getTotalElements()).isEqualTo(4);
+        assertThat(result.getTeamFacets()).extracting("teamName", "count")
+                                        .containsExactly(tuple("teamB", 3L), tuple("teamA", 1L));
+        assertThat(result.getAgeFacets()).containsExactly(
+                                        entry("~19", 0L), entry("20-29", 2L), entry("30-39", 0L),
+                                        entry("40-49", 1L), entry("50~", 1L));
+    }
+    
+    @Test
+    public void searchPageEstimated() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        for (int i = 0; i < 5; i++) {
+            em.persist(new Member("member" + i, 20 + i, teamA));
+        }
+        
+        // 추정 캐시는 조건 + 데이터 버전으로 찾으므로 다른 테스트와 겹치지 않는 조건을 쓴다
+        MemberSearchCondition condition = MemberSearchCondition.builder().ageGoe(21).ageLoe(99).build();
+        
+        // id 범위가 표본보다 작으면 그냥 센다
+        EstimatedPage<MemberTeamDto> first = memberRepository.searchPageEstimated(condition, PageRequest.of(0, 2));
+        assertThat(first.getContent()).hasSize(2);
+        assertThat(first).extracting("totalElements", "exact", "errorBound", "estimateSource")
+                                        .containsExactly(4L, true, 0L, Source.COUNTED);
+        
+        // 마지막 페이지는 content 로 전체 건수를 안다
+        EstimatedPage<MemberTeamDto> last = memberRepository.searchPageEstimated(condition, PageRequest.of(1, 3));
+        assertThat(last.getContent()).hasSize(1);
+        assertThat(last.getTotalElements()).isEqualTo(4);
+        assertThat(last.isExact()).isTrue();
+    }
+    
+    @Test
+    public void searchByUsernamePrefix() {
+        em.persist(new Member("member1", 10));
+        em.persist(new Member("member10", 20));
+        em.persist(new Member("manager1", 30));
+        em.persist(new Member("mem_ber", 40));
+        
+        MemberSearchCondition prefix = MemberSearchCondition.builder().usernamePrefix("member1").build();
+        assertThat(memberRepository.searchPageComplex(prefix, PageRequest.of(0, 10)).getContent())
+                                        .extracting("username").containsExactlyInAnyOrder("member1", "member10");
+        assertThat(memberRepository.searchCompiled(prefix)).extracting("username")
+                                        .containsExactlyInAnyOrder("member1", "member10");
+        
+        // like 와일드카드는 문자 그대로
+        MemberSearchCondition wildcard = MemberSearchCondition.builder().usernamePrefix("mem_").build();
+        assertThat(memberRepository.searchCompiled(wildcard)).extracting("username").containsExactly("mem_ber");
+    }
 }
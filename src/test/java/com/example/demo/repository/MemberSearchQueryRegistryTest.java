@@ -0,0 +1,55 @@
+package com.example.demo.repository;
+
+import static com.example.demo.dto.MemberSearchCondition.AGE_GOE;
+import static com.example.demo.dto.MemberSearchCondition.USERNAME_CONTAINS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Order;
+
+public class MemberSearchQueryRegistryTest {
+
+    MemberSearchQueryRegistry registry = new MemberSearchQueryRegistry();
+
+    @Test
+    public void orderBy() {
+        Sort sort = Sort.by(Order.desc("age"), Order.asc("memberId"));
+
+        assertThat(registry.get(AGE_GOE, sort, 0).getContentJpql())
+                                        .endsWith("where m.age >= :ageGoe order by m.age desc, m.id asc");
+    }
+
+    @Test
+    public void ignoreCaseAndNullHandling() {
+        Sort sort = Sort.by(Order.asc("teamName").ignoreCase().nullsLast(), Order.desc("username").nullsFirst());
+
+        assertThat(registry.get(0, sort, 0).getContentJpql())
+                                        .endsWith(" order by lower(t.name) asc nulls last, m.username desc nulls first");
+        // 같은 속성이어도 정렬 옵션이 다르면 다른 쿼리
+        assertThat(registry.get(0, Sort.by(Order.asc("teamName")), 0).getContentJpql())
+                                        .endsWith(" order by t.name asc");
+    }
+
+    @Test
+    public void usernameCandidatesAreChunked() {
+        assertThat(MemberSearchQueryRegistry.usernameChunks(MemberRepositoryImpl.IN_CHUNK_SIZE)).isEqualTo(1);
+        assertThat(MemberSearchQueryRegistry.usernameChunks(MemberRepositoryImpl.IN_CHUNK_SIZE + 1)).isEqualTo(2);
+
+        assertThat(registry.get(USERNAME_CONTAINS, Sort.unsorted(), 2).getCountJpql())
+                                        .endsWith("where (m.id in :usernameIds0 or m.id in :usernameIds1)"
+                                                                        + " and m.username like :usernameContains escape '!'");
+        // 부분 문자열 조건이 없으면 후보 수와 관계없이 같은 쿼리
+        assertThat(registry.get(AGE_GOE, Sort.unsorted(), 2)).isSameAs(registry.get(AGE_GOE, Sort.unsorted(), 0));
+    }
+
+    @Test
+    public void rejectsUnsupportedSort() {
+        assertThatThrownBy(() -> registry.get(0, Sort.by(Order.asc("age").ignoreCase()), 0))
+                                        .isInstanceOf(IllegalArgumentException.class)
+                                        .hasMessageContaining("ignoreCase");
+        assertThatThrownBy(() -> registry.get(0, Sort.by("password"), 0))
+                                        .isInstanceOf(IllegalArgumentException.class)
+                                        .hasMessageContaining("unsupported sort property");
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.demo.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+public class ParallelCountExecutorTest {
+
+    ParallelCountExecutor executor = new ParallelCountExecutor(mock(PlatformTransactionManager.class), 1, Duration.ofMillis(100));
+
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch interrupted = new CountDownLatch(1);
+    AtomicInteger runs = new AtomicInteger();
+
+    /** 끝나지 않는 count. interrupt 되면 멈춘다. */
+    Supplier<Long> slowCount = () -> {
+        runs.incrementAndGet();
+        started.countDown();
+        try {
+            Thread.sleep(10_000);
+            return 0L;
+        } catch (InterruptedException e) {
+            interrupted.countDown();
+            throw new IllegalStateException(e);
+        }
+    };
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void timeoutCancelsWithoutCountingAgain() throws InterruptedException {
+        Future<Long> future = executor.submit(slowCount);
+
+        assertThatThrownBy(() -> executor.await(future, slowCount)).isInstanceOf(QueryTimeoutException.class);
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(runs.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void rejectedCountsInline() throws InterruptedException {
+        Future<Long> busy = executor.submit(slowCount);
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // 스레드 하나가 이미 바쁘다
+        Future<Long> rejected = executor.submit(() -> 42L);
+        assertThat(rejected).isNull();
+        assertThat(executor.await(rejected, () -> 42L)).isEqualTo(42L);
+
+        busy.cancel(true);
+    }
+
+    @Test
+    public void skippedCountIsInterrupted() throws InterruptedException {
+        Future<Long> future = executor.submit(slowCount);
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // searchPageParallel 이 count 가 필요 없을 때 하는 취소
+        future.cancel(true);
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    public void queryTimeoutIsAtLeastOneSecond() {
+        assertThat(executor.queryTimeoutMillis()).isEqualTo(1000);
+    }
+}
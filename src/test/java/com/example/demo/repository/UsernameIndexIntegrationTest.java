@@ -0,0 +1,151 @@
+package com.example.demo.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.util.ArrayList;
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.example.demo.dto.MemberBulkCommand;
+import com.example.demo.dto.MemberBulkCommand.Operation;
+import com.example.demo.dto.MemberSearchCondition;
+import com.example.demo.dto.MemberTeamDto;
+import com.example.demo.entity.Member;
+
+/**
+ * 색인은 커밋된 데이터만 반영하므로 롤백 테스트 대신 실제로 커밋하고 끝나면 만든 회원만 지운다.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class UsernameIndexIntegrationTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    UsernameIndex usernameIndex;
+
+    TransactionTemplate tx;
+    List<Long> created = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        tx = new TransactionTemplate(transactionManager);
+        usernameIndex.rebuild();
+        awaitFresh();
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        if (!created.isEmpty()) {
+            tx.executeWithoutResult(status -> em.createQuery("delete from Member m where m.id in :ids")
+                                            .setParameter("ids", created)
+                                            .executeUpdate());
+        }
+    }
+
+    @Test
+    public void searchUsesIndexAndChecksInDb() {
+        Long id = persist("uixAlpha1");
+
+        assertThat(usernameIndex.candidates("uixAlpha")).containsExactly(id);
+        assertThat(search("uixAlpha")).extracting(MemberTeamDto::getMemberId).containsExactly(id);
+
+        // DB 와 맞지 않는 후보가 있어도 LIKE 로 걸러진다
+        usernameIndex.changed(id, null, "uixGhost1");
+        assertThat(usernameIndex.candidates("uixGhost")).containsExactly(id);
+        assertThat(search("uixGhost")).isEmpty();
+    }
+
+    @Test
+    public void listenerAppliesOnlyCommittedChanges() {
+        tx.executeWithoutResult(status -> {
+            em.persist(new Member("uixRolled1", 10));
+            em.flush();
+            status.setRollbackOnly();
+        });
+        assertThat(usernameIndex.candidates("uixRolled")).isEmpty();
+
+        Long id = persist("uixBefore1");
+        tx.executeWithoutResult(status -> em.find(Member.class, id).setUsername("uixAfter1"));
+
+        assertThat(usernameIndex.candidates("uixBefore")).isEmpty();
+        assertThat(usernameIndex.candidates("uixAfter")).containsExactly(id);
+        assertThat(search("uixAfter")).extracting(MemberTeamDto::getMemberId).containsExactly(id);
+    }
+
+    @Test
+    public void bulkChangeFallsBackToLike() throws InterruptedException {
+        Long id = persist("uixBulk1");
+
+        usernameIndex.beginBulkChange();
+        try {
+            assertThat(usernameIndex.candidates("uixBulk")).isNull();
+            assertThat(search("uixBulk")).extracting(MemberTeamDto::getMemberId).containsExactly(id);
+        } finally {
+            usernameIndex.endBulkChange();
+        }
+
+        awaitFresh();
+        assertThat(usernameIndex.candidates("uixBulk")).containsExactly(id);
+    }
+
+    @Test
+    public void bulkChunkAppliesChangedRowsAfterCommit() {
+        Long renamed = persist("uixChunk1");
+        Long deleted = persist("uixChunk2");
+        MemberBulkCommand rename = MemberBulkCommand.builder()
+                                        .condition(MemberSearchCondition.builder().usernameContains("uixChunk1").build())
+                                        .operation(Operation.SET_USERNAME)
+                                        .username("uixRenamed1")
+                                        .build();
+        MemberBulkCommand delete = MemberBulkCommand.builder()
+                                        .condition(MemberSearchCondition.builder().usernameContains("uixChunk2").build())
+                                        .operation(Operation.DELETE)
+                                        .build();
+
+        tx.executeWithoutResult(status -> {
+            memberRepository.bulkChunk(rename, renamed, deleted + 1);
+            memberRepository.bulkChunk(delete, renamed, deleted + 1);
+            assertThat(usernameIndex.candidates("uixRenamed")).isEmpty(); // 커밋 전
+        });
+
+        // 다시 만들지 않고 바뀐 행만 반영한다
+        assertThat(usernameIndex.isFresh()).isTrue();
+        assertThat(usernameIndex.candidates("uixChunk")).isEmpty();
+        assertThat(usernameIndex.candidates("uixRenamed")).containsExactly(renamed);
+    }
+
+    private Long persist(String username) {
+        Long id = tx.execute(status -> {
+            Member member = new Member(username, 10);
+            em.persist(member);
+            return member.getId();
+        });
+        created.add(id);
+        return id;
+    }
+
+    private List<MemberTeamDto> search(String usernameContains) {
+        return memberRepository.search(MemberSearchCondition.builder().usernameContains(usernameContains).build());
+    }
+
+    private void awaitFresh() throws InterruptedException {
+        for (int i = 0; i < 500 && !usernameIndex.isFresh(); i++) {
+            Thread.sleep(10);
+        }
+        assertThat(usernameIndex.isFresh()).isTrue();
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.demo.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import javax.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+public class UsernameIndexTest {
+    
+    JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    UsernameIndex index = new UsernameIndex(jdbcTemplate, mock(EntityManagerFactory.class), 2, 100, Duration.ofHours(1));
+    
+    @BeforeEach
+    public void setUp() {
+        index.rebuild(); // 빈 member 테이블
+        index.changed(1L, null, "member1");
+        index.changed(2L, null, "member2");
+        index.changed(3L, null, "admin");
+    }
+    
+    @Test
+    public void candidates() {
+        assertThat(index.candidates("mber1")).containsExactly(1L);
+        assertThat(index.candidates("dmi")).containsExactly(3L);
+        assertThat(index.candidates("xyz")).isEmpty();
+    }
+    
+    @Test
+    public void fallsBack() {
+        assertThat(index.candidates("me")).isNull(); // trigram 보다 짧다
+        
+        index.changed(4L, null, "member4");
+        assertThat(index.candidates("member")).isNull(); // 후보가 max-candidates(2) 초과
+    }
+    
+    @Test
+    public void candidatesBeyondOneInList() {
+        UsernameIndex large = new UsernameIndex(jdbcTemplate, mock(EntityManagerFactory.class), 10_000, 100_000, Duration.ofHours(1));
+        large.rebuild();
+        int count = MemberRepositoryImpl.IN_CHUNK_SIZE * 2 + 1;
+        for (long id = count; id >= 1; id--) {
+            large.changed(id, null, "member" + id);
+        }
+        
+        // IN 목록을 나눌 수 있도록 id 순서로 돌려준다
+        assertThat(large.candidates("member")).hasSize(count).isSorted();
+    }
+    
+    @Test
+    public void changed() {
+        index.changed(1L, "member1", "manager1");
+        assertThat(index.candidates("member1")).isEmpty();
+        assertThat(index.candidates("nager")).containsExactly(1L);
+        
+        index.changed(1L, "manager1", null);
+        assertThat(index.candidates("nager")).isEmpty();
+    }
+    
+    @Test
+    public void changesOverRebuiltPostings() throws SQLException {
+        rows(new long[] {10L, 20L, 30L}, new String[] {"member10", "member20", "admin30"});
+        index.rebuild();
+        
+        assertThat(index.candidates("mber")).containsExactlyInAnyOrder(10L, 20L);
+        
+        index.changed(10L, "member10", "manager10"); // base 에 있던 id 를 가린다
+        index.changed(40L, null, "member40");
+        assertThat(index.candidates("mber")).containsExactlyInAnyOrder(20L, 40L);
+        
+        index.changed(10L, "manager10", "member10"); // 다시 추가
+        assertThat(index.candidates("mber1")).containsExactly(10L);
+    }
+    
+    @Test
+    public void changedAfterCommitOutsideTransaction() {
+        index.changedAfterCommit(List.of(new UsernameIndex.Change(1L, "member1", null),
+                                        new UsernameIndex.Change(5L, null, "manager5")));
+        
+        assertThat(index.candidates("mber1")).isEmpty();
+        assertThat(index.candidates("nager")).containsExactly(5L);
+    }
+    
+    @Test
+    public void failedRebuildIsNotFresh() {
+        doThrow(new DataAccessResourceFailureException("down")).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+        index.rebuild();
+        
+        // 예전 색인은 남아 있지만 커밋된 데이터보다 뒤처졌을 수 있으므로 쓰지 않는다
+        assertThat(index.isReady()).isTrue();
+        assertThat(index.candidates("mber1")).isNull();
+        assertThat(index.stats()).containsEntry("failed", true).containsEntry("fresh", false);
+        
+        doAnswer(invocation -> null).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+        index.rebuild(); // 예약된 재시도
+        assertThat(index.candidates("mber1")).isEmpty();
+        assertThat(index.stats()).containsEntry("failed", false);
+    }
+    
+    @Test
+    public void noCandidatesDuringBulkChange() {
+        index.beginBulkChange();
+        assertThat(index.candidates("mber1")).isNull();
+        assertThat(index.stats()).containsEntry("fresh", false);
+    }
+    
+    private void rows(long[] ids, String[] usernames) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        int[] row = {-1};
+        when(rs.getLong(1)).thenAnswer(invocation -> ids[row[0]]);
+        when(rs.getString(2)).thenAnswer(invocation -> usernames[row[0]]);
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (row[0] = 0; row[0] < ids.length; row[0]++) {
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.demo.stats;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.util.ArrayList;
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.example.demo.dto.TeamStatsDto;
+import com.example.demo.entity.Member;
+import com.example.demo.entity.Team;
+
+/**
+ * team_stats 는 커밋 직전에 갱신되므로 롤백 테스트(@Transactional) 대신 실제로 커밋하고 끝나면 만든 팀만 지운다.
+ * 같은 DB 를 다른 테스트와 같이 쓰므로 팀은 id 로 찾는다.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class TeamStatsServiceTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    TeamStatsService teamStatsService;
+
+    List<Long> teamIds = new ArrayList<>();
+
+    @AfterEach
+    public void cleanUp() {
+        if (teamIds.isEmpty()) {
+            return;
+        }
+        inTx(() -> {
+            em.createQuery("delete from Member m where m.team.id in :teamIds").setParameter("teamIds", teamIds).executeUpdate();
+            em.createQuery("delete from TeamStats s where s.teamId in :teamIds").setParameter("teamIds", teamIds).executeUpdate();
+            em.createQuery("delete from Team t where t.id in :teamIds").setParameter("teamIds", teamIds).executeUpdate();
+        });
+    }
+
+    @Test
+    public void incrementalStats() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        Member member3 = new Member("member3", 30, teamB);
+        inTx(() -> {
+            em.persist(teamA);
+            em.persist(teamB);
+            em.persist(member1);
+            em.persist(member2);
+            em.persist(member3);
+        });
+        teamIds.add(teamA.getId());
+        teamIds.add(teamB.getId());
+
+        assertThat(stats(teamA)).extracting("memberCount", "ageSum", "minAge", "maxAge").containsExactly(2L, 30L, 10, 20);
+        assertThat(stats(teamB)).extracting("memberCount", "ageSum", "minAge", "maxAge").containsExactly(1L, 30L, 30, 30);
+
+        // member2 가 teamB 로 옮기면서 나이도 바뀜, member1 삭제
+        inTx(() -> {
+            Member moved = em.find(Member.class, member2.getId());
+            moved.changeTeam(em.find(Team.class, teamB.getId()));
+            moved.setAge(40);
+            em.remove(em.find(Member.class, member1.getId()));
+        });
+
+        assertThat(stats(teamB)).extracting("memberCount", "ageSum", "minAge", "maxAge").containsExactly(2L, 70L, 30, 40);
+        assertThat(stats(teamA)).extracting("memberCount", "ageSum").containsExactly(0L, 0L);
+
+        // 롤백되면 요약도 그대로
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            em.persist(new Member("member4", 50, em.find(Team.class, teamB.getId())));
+            em.flush();
+            status.setRollbackOnly();
+        });
+        assertThat(stats(teamB).getMemberCount()).isEqualTo(2L);
+
+        // 최소/최대는 stale 팀만 다시 계산해서 맞춘다
+        teamStatsService.repairStale();
+        assertThat(stats(teamA)).extracting("memberCount", "minAge", "maxAge", "stale").containsExactly(0L, null, null, false);
+    }
+
+    @Test
+    public void rebuild() {
+        Team teamA = new Team("teamA");
+        inTx(() -> {
+            em.persist(teamA);
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+        });
+        teamIds.add(teamA.getId());
+
+        // 리스너를 거치지 않는 벌크 변경
+        inTx(() -> em.createQuery("update Member m set m.age = m.age + 1 where m.team.id = :teamId")
+                                        .setParameter("teamId", teamA.getId())
+                                        .executeUpdate());
+        teamStatsService.rebuild();
+
+        assertThat(stats(teamA)).extracting("memberCount", "ageSum", "minAge", "maxAge", "stale")
+                                        .containsExactly(2L, 32L, 11, 21, false);
+    }
+
+    @Test
+    public void teamWithoutStatsRowIsLeftToRebuild() {
+        Team teamA = new Team("teamA");
+        inTx(() -> em.persist(teamA));
+        teamIds.add(teamA.getId());
+        // 리스너 밖(JDBC)에서 만든 팀처럼 행을 지운다
+        inTx(() -> em.createQuery("delete from TeamStats s where s.teamId = :teamId")
+                                        .setParameter("teamId", teamA.getId())
+                                        .executeUpdate());
+
+        // 다른 트랜잭션과 동시에 insert 하다 실패하지 않도록 여기서는 행을 만들지 않는다
+        inTx(() -> em.persist(new Member("member1", 10, em.find(Team.class, teamA.getId()))));
+        assertThat(teamStatsService.findAll()).noneMatch(s -> s.getTeamId().equals(teamA.getId()));
+
+        teamStatsService.repairStale(); // 요청된 전체 재계산이 행을 만든다
+        assertThat(stats(teamA)).extracting("memberCount", "ageSum", "minAge", "maxAge", "stale")
+                                        .containsExactly(1L, 10L, 10, 10, false);
+    }
+
+    private TeamStatsDto stats(Team team) {
+        List<TeamStatsDto> all = teamStatsService.findAll();
+        return all.stream().filter(s -> s.getTeamId().equals(team.getId())).findFirst().orElseThrow();
+    }
+
+    private void inTx(Runnable work) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> work.run());
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.demo.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.util.ArrayList;
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.example.demo.entity.Member;
+
+/**
+ * 버전은 커밋 직전에 같은 트랜잭션에서 오르므로 실제로 커밋하고 끝나면 만든 회원만 지운다.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class DataVersionTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    DataVersion dataVersion;
+
+    List<Long> memberIds = new ArrayList<>();
+
+    @AfterEach
+    public void cleanUp() {
+        if (!memberIds.isEmpty()) {
+            tx().executeWithoutResult(status ->
+                                            em.createQuery("delete from Member m where m.id in :ids").setParameter("ids", memberIds).executeUpdate());
+        }
+    }
+
+    @Test
+    public void entityChangesBumpOncePerTransaction() {
+        DataVersion.Stamp before = dataVersion.current();
+
+        Member member1 = new Member("version1", 10);
+        Member member2 = new Member("version2", 20);
+        tx().executeWithoutResult(status -> {
+            em.persist(member1);
+            em.persist(member2);
+        });
+        memberIds.add(member1.getId());
+        memberIds.add(member2.getId());
+
+        DataVersion.Stamp after = dataVersion.current();
+        assertThat(after.getEpoch()).isEqualTo(before.getEpoch());
+        assertThat(after.getVersion()).isEqualTo(before.getVersion() + 1);
+
+        // 롤백되면 그대로
+        tx().executeWithoutResult(status -> {
+            em.find(Member.class, member1.getId()).setAge(11);
+            em.flush();
+            status.setRollbackOnly();
+        });
+        assertThat(dataVersion.current()).isEqualTo(after);
+    }
+
+    @Test
+    public void bulkChangeBumpsAtCommit() {
+        DataVersion.Stamp before = dataVersion.current();
+
+        tx().executeWithoutResult(status -> {
+            dataVersion.bump();
+            dataVersion.bump();
+            assertThat(dataVersion.current()).isEqualTo(before); // 커밋 직전에 한 번만 올린다
+        });
+
+        assertThat(dataVersion.current().getVersion()).isEqualTo(before.getVersion() + 1);
+    }
+
+    @Test
+    public void sharedAcrossInstances() {
+        // 다른 노드의 DataVersion 도 같은 행을 본다
+        DataVersion otherNode = new DataVersion(jdbcTemplate);
+        otherNode.bump();
+
+        assertThat(dataVersion.current()).isEqualTo(otherNode.current());
+    }
+
+    private TransactionTemplate tx() {
+        return new TransactionTemplate(transactionManager);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.demo.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.util.OptionalLong;
+import org.junit.jupiter.api.Test;
+import com.example.demo.dto.MemberSearchCondition;
+
+public class PageTokenCodecTest {
+    
+    PageTokenCodec codec = new PageTokenCodec("test-secret");
+    
+    DataVersion.Stamp version = new DataVersion.Stamp(1, 7);
+    
+    MemberSearchCondition condition = MemberSearchCondition.builder()
+                                    .teamName("teamA")
+                                    .ageGoe(10)
+                                    .build();
+    
+    @Test
+    public void reuseTotal() {
+        String token = codec.issue(condition, 42, version);
+        
+        MemberSearchCondition same = MemberSearchCondition.builder()
+                                        .teamName("teamA")
+                                        .ageGoe(10)
+                                        .username("")
+                                        .build();
+        
+        assertThat(codec.verifyTotal(token, same, version)).isEqualTo(OptionalLong.of(42));
+    }
+    
+    @Test
+    public void rejectChangedVersionOrCondition() {
+        String token = codec.issue(condition, 42, version);
+        
+        MemberSearchCondition other = MemberSearchCondition.builder().teamName("teamB").ageGoe(10).build();
+        
+        assertThat(codec.verifyTotal(token, condition, new DataVersion.Stamp(1, 8))).isEmpty();
+        assertThat(codec.verifyTotal(token, other, version)).isEmpty();
+    }
+    
+    @Test
+    public void rejectOtherEpoch() {
+        // 스키마를 새로 만들면 같은 버전 숫자가 다시 나온다
+        String token = codec.issue(condition, 42, version);
+        
+        assertThat(new PageTokenCodec("test-secret").verifyTotal(token, condition, version)).isEqualTo(OptionalLong.of(42));
+        assertThat(codec.verifyTotal(token, condition, new DataVersion.Stamp(2, 7))).isEmpty();
+    }
+    
+    @Test
+    public void rejectTamperedToken() {
+        String token = codec.issue(condition, 42, version);
+        String forged = new PageTokenCodec("other-secret").issue(condition, 1, version);
+        
+        assertThat(codec.verifyTotal(forged, condition, version)).isEmpty();
+        assertThat(codec.verifyTotal(token.substring(1), condition, version)).isEmpty();
+        assertThat(codec.verifyTotal("not-a-token", condition, version)).isEmpty();
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.demo.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import com.example.demo.dto.MemberSearchCondition;
+
+public class SearchETagTest {
+    
+    DataVersion.Stamp version = new DataVersion.Stamp(1, 7);
+    
+    MemberSearchCondition condition = MemberSearchCondition.builder()
+                                    .teamName("teamA")
+                                    .ageGoe(10)
+                                    .build();
+    
+    @Test
+    public void sameRequestSameVersion() {
+        MemberSearchCondition same = MemberSearchCondition.builder()
+                                        .teamName("teamA")
+                                        .ageGoe(10)
+                                        .username("")
+                                        .build();
+        
+        assertThat(SearchETag.of("v2", version, same, PageRequest.of(1, 20)))
+                                        .isEqualTo(SearchETag.of("v2", version, condition, PageRequest.of(1, 20)));
+    }
+    
+    @Test
+    public void changesWithVersionPageAndEndpoint() {
+        String etag = SearchETag.of("v2", version, condition, PageRequest.of(0, 20));
+        
+        assertThat(SearchETag.of("v2", version, condition, PageRequest.of(1, 20))).isNotEqualTo(etag);
+        assertThat(SearchETag.of("v3", version, condition, PageRequest.of(0, 20))).isNotEqualTo(etag);
+        
+        assertThat(SearchETag.of("v2", new DataVersion.Stamp(1, 8), condition, PageRequest.of(0, 20))).isNotEqualTo(etag);
+        // 스키마를 새로 만들면 같은 버전 숫자가 다시 나온다
+        assertThat(SearchETag.of("v2", new DataVersion.Stamp(2, 7), condition, PageRequest.of(0, 20))).isNotEqualTo(etag);
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.demo.support.datasource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.example.demo.dto.MemberSearchCondition;
+import com.example.demo.dto.MemberTeamDto;
+import com.example.demo.repository.MemberRepository;
+import com.example.demo.support.DataVersion;
+
+/**
+ * 앱과 같은 JpaTransactionManager 로 readOnly repository 메서드가 실제로 replica 에서 읽는지 본다.
+ * replica 는 내장 H2 이고 필요한 테이블만 만들어 replica 에만 있는 행을 넣는다.
+ */
+@SpringBootTest(properties = {
+        "demo.datasource.routing.enabled=true",
+        "demo.datasource.routing.health-check-interval=0s",
+        "demo.datasource.routing.replicas[0].url=" + JpaReadRoutingTest.REPLICA_URL,
+        "demo.datasource.routing.replicas[0].username=sa",
+        "demo.datasource.routing.replicas[0].password=",
+        "decorator.datasource.exclude-beans=readWriteRoutingDataSource"
+})
+@ActiveProfiles("test")
+public class JpaReadRoutingTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:jpa-routing-replica;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    DataVersion dataVersion;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    MemberSearchCondition replicaOnly = MemberSearchCondition.builder().username("replica-only").build();
+
+    @BeforeEach
+    public void setUpReplica() {
+        JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+        replica.execute("create table if not exists team (team_id bigint primary key, name varchar(255))");
+        replica.execute("create table if not exists member (member_id bigint primary key, username varchar(255),"
+                                        + " age integer not null, team_id bigint)");
+        replica.execute("create table if not exists data_version (id integer primary key, epoch bigint not null, version bigint not null)");
+        replica.update("merge into member key(member_id) values (?, ?, ?, null)", Long.MAX_VALUE, "replica-only", 33);
+        replica.update("merge into data_version key(id) values (1, 42, 7)");
+    }
+
+    @Test
+    public void readOnlySearchReadsReplica() {
+        assertThat(transactionManager).isInstanceOf(JpaTransactionManager.class);
+
+        Page<MemberTeamDto> page = memberRepository.searchPageComplex(replicaOnly, PageRequest.of(0, 20));
+
+        assertThat(page.getContent()).extracting("username", "age").containsExactly(tuple("replica-only", 33));
+    }
+
+    @Test
+    public void writeTransactionReadsPrimary() {
+        // readOnly 메서드도 쓰기 트랜잭션에 참여하면 그 커넥션(primary)을 쓴다
+        Page<MemberTeamDto> page = new TransactionTemplate(transactionManager)
+                                        .execute(status -> memberRepository.searchPageComplex(replicaOnly, PageRequest.of(0, 20)));
+
+        assertThat(page.getContent()).isEmpty();
+    }
+
+    @Test
+    public void versionIsReadFromReplica() {
+        assertThat(dataVersion.current()).isEqualTo(new DataVersion.Stamp(42, 7));
+    }
+}
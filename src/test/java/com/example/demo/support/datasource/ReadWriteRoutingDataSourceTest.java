@@ -0,0 +1,185 @@
+package com.example.demo.support.datasource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 내장 H2 (primary, replica)로 라우팅을 확인한다. 각 DB 에 자기 이름을 넣어두고 어느 쪽에서 읽었는지 본다.
+ */
+public class ReadWriteRoutingDataSourceTest {
+
+    ReadWriteRoutingDataSource routing;
+
+    @AfterEach
+    public void tearDown() {
+        routing.destroy();
+    }
+
+    @Test
+    public void readOnlyGoesToReplica() {
+        Fixture fixture = new Fixture("ro", Duration.ZERO);
+
+        assertThat(fixture.read(true)).isEqualTo("replica");
+        assertThat(fixture.read(false)).isEqualTo("primary");
+    }
+
+    @Test
+    public void readYourWritesWindow() {
+        Fixture fixture = new Fixture("ryw", Duration.ofMinutes(1));
+        assertThat(fixture.read(true)).isEqualTo("replica");
+
+        fixture.writeTx.executeWithoutResult(status -> fixture.jdbc.update("update node set name = name"));
+
+        assertThat(fixture.read(true)).isEqualTo("primary");
+    }
+
+    @Test
+    public void fallbackToPrimaryWhenReplicaIsDown() {
+        Fixture fixture = new Fixture("down", Duration.ZERO);
+
+        fixture.replica.down = true;
+        assertThat(fixture.read(true)).isEqualTo("primary");
+        assertThat(routing.isReplicaHealthy(0)).isFalse();
+
+        fixture.replica.down = false;
+        routing.checkReplicas();
+        assertThat(routing.isReplicaHealthy(0)).isTrue();
+        assertThat(fixture.read(true)).isEqualTo("replica");
+    }
+
+    @Test
+    public void scopePinsFirstChoice() throws Exception {
+        Fixture fixture = new Fixture("pin", Duration.ZERO, 2);
+        assertThat(List.of(fixture.read(true), fixture.read(true))).containsExactlyInAnyOrder("replica", "replica2");
+
+        ReadRouting.Scope previous = ReadRouting.open(null);
+        ExecutorService other = Executors.newSingleThreadExecutor();
+        try {
+            String first = fixture.read(true);
+            assertThat(fixture.read(true)).isEqualTo(first);
+            assertThat(other.submit(ReadRouting.propagate(() -> fixture.read(true))).get()).isEqualTo(first);
+            assertThat(ReadRouting.onPrimary(() -> fixture.read(true))).isEqualTo("primary");
+
+            ReadRouting.usePrimary();
+            assertThat(fixture.read(true)).isEqualTo("primary");
+        } finally {
+            other.shutdownNow();
+            ReadRouting.restore(previous);
+        }
+    }
+
+    @Test
+    public void pinnedReplicaDownGoesToPrimary() {
+        Fixture fixture = new Fixture("pin-down", Duration.ZERO);
+
+        ReadRouting.Scope previous = ReadRouting.open(null);
+        try {
+            assertThat(fixture.read(true)).isEqualTo("replica");
+            fixture.replica.down = true;
+            routing.checkReplicas();
+            assertThat(fixture.read(true)).isEqualTo("primary");
+        } finally {
+            ReadRouting.restore(previous);
+        }
+    }
+
+    @Test
+    public void credentialsGoToPrimary() throws SQLException {
+        new Fixture("credentials", Duration.ZERO);
+
+        try (Connection connection = routing.getConnection("sa", "");
+             ResultSet rs = connection.createStatement().executeQuery("select name from node")) {
+            assertThat(rs.next()).isTrue();
+            assertThat(rs.getString(1)).isEqualTo("primary");
+        }
+    }
+
+    @Test
+    public void destroyClosesPools() {
+        Fixture fixture = new Fixture("close", Duration.ZERO);
+
+        routing.destroy();
+
+        assertThat(fixture.primary.closed).isTrue();
+        assertThat(fixture.replica.closed).isTrue();
+    }
+
+    class Fixture {
+        final FlakyDataSource primary;
+        final FlakyDataSource replica;
+        final JdbcTemplate jdbc;
+        final TransactionTemplate readTx;
+        final TransactionTemplate writeTx;
+
+        Fixture(String name, Duration readYourWritesWindow) {
+            this(name, readYourWritesWindow, 1);
+        }
+
+        Fixture(String name, Duration readYourWritesWindow, int replicaCount) {
+            primary = database("jdbc:h2:mem:" + name + "-primary;DB_CLOSE_DELAY=-1", "primary");
+            List<DataSource> replicas = new ArrayList<>();
+            for (int i = 0; i < replicaCount; i++) {
+                String node = i == 0 ? "replica" : "replica" + (i + 1);
+                replicas.add(database("jdbc:h2:mem:" + name + "-" + node + ";DB_CLOSE_DELAY=-1", node));
+            }
+            replica = (FlakyDataSource) replicas.get(0);
+
+            routing = new ReadWriteRoutingDataSource(primary, replicas, readYourWritesWindow, Duration.ZERO);
+            LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routing);
+            DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+
+            jdbc = new JdbcTemplate(dataSource);
+            readTx = new TransactionTemplate(transactionManager);
+            readTx.setReadOnly(true);
+            writeTx = new TransactionTemplate(transactionManager);
+        }
+
+        String read(boolean readOnly) {
+            return (readOnly ? readTx : writeTx).execute(status -> jdbc.queryForObject("select name from node", String.class));
+        }
+
+        private FlakyDataSource database(String url, String node) {
+            FlakyDataSource dataSource = new FlakyDataSource(url);
+            new JdbcTemplate(dataSource).execute("create table if not exists node (name varchar(20))");
+            new JdbcTemplate(dataSource).update("insert into node values (?)", node);
+            return dataSource;
+        }
+    }
+
+    static class FlakyDataSource extends DriverManagerDataSource implements AutoCloseable {
+        volatile boolean down;
+        volatile boolean closed;
+
+        FlakyDataSource(String url) {
+            super(url, "sa", "");
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (down) {
+                throw new SQLException("replica is down");
+            }
+            return super.getConnection();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.demo.support.sql;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import org.junit.jupiter.api.Test;
+import com.p6spy.engine.common.StatementInformation;
+
+public class SqlCaptureListenerTest {
+
+    @Test
+    public void normalizeRemovesLiteralsAndComments() {
+        assertThat(SqlCaptureListener.normalize("/* search */ select m1_0.member_id from member m1_0\n"
+                                        + "  where m1_0.age >= 10 and m1_0.username = 'it''s'"))
+                                        .isEqualTo("select m1_0.member_id from member m1_0 where m1_0.age >= ? and m1_0.username = ?");
+        assertThat(SqlCaptureListener.normalize("select 1.5")).isEqualTo("select ?");
+        assertThat(SqlCaptureListener.normalize(null)).isEqualTo("(other)");
+    }
+
+    @Test
+    public void normalizeCollapsesInLists() {
+        String one = SqlCaptureListener.normalize("select * from member where member_id in (?)");
+
+        assertThat(SqlCaptureListener.normalize("SELECT * FROM member WHERE member_id IN (?, ?,?)")).isEqualTo(one);
+        assertThat(SqlCaptureListener.normalize("select * from member where member_id in (1, 2, 3)")).isEqualTo(one);
+    }
+
+    @Test
+    public void aggregatesByShape() {
+        SqlCaptureListener listener = new SqlCaptureListener(properties(true, 10));
+
+        listener.onAfterAnyExecute(statement("select * from member where age = 10"), 2_000_000, null);
+        listener.onAfterAnyExecute(statement("select * from member where age = 20"), 1_000_000, null);
+        listener.onAfterAnyExecute(statement("select * from team"), 500_000, null);
+
+        assertThat(listener.top(10)).extracting(shape -> shape.get("sql"), shape -> shape.get("count"))
+                                    .containsExactly(tuple("select * from member where age = ?", 2L),
+                                                     tuple("select * from team", 1L));
+        assertThat(listener.top(1)).hasSize(1);
+
+        listener.reset();
+        assertThat(listener.top(10)).isEmpty();
+    }
+
+    @Test
+    public void shapesOverLimitGoToOther() {
+        SqlCaptureListener listener = new SqlCaptureListener(properties(true, 1));
+
+        listener.onAfterAnyExecute(statement("select * from member"), 1_000, null);
+        listener.onAfterAnyExecute(statement("select * from team"), 1_000, null);
+
+        assertThat(listener.top(10)).extracting(shape -> shape.get("sql"))
+                                    .containsExactlyInAnyOrder("select * from member", "(other)");
+    }
+
+    @Test
+    public void disabledRecordsNothing() {
+        SqlCaptureListener listener = new SqlCaptureListener(properties(false, 10));
+
+        listener.onAfterAnyExecute(statement("select * from member"), 1_000, null);
+
+        assertThat(listener.top(10)).isEmpty();
+    }
+
+    private static SqlCaptureProperties properties(boolean enabled, int maxShapes) {
+        SqlCaptureProperties properties = new SqlCaptureProperties();
+        properties.setEnabled(enabled);
+        properties.setSampleRate(1.0);
+        properties.setMaxShapes(maxShapes);
+        return properties;
+    }
+
+    private static StatementInformation statement(String sql) {
+        StatementInformation statement = mock(StatementInformation.class);
+        when(statement.getSql()).thenReturn(sql);
+        return statement;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.demo.support.sql;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class SqlShapeStatsTest {
+
+    @Test
+    public void percentilesUseBucketUpperBound() {
+        SqlShapeStats stats = new SqlShapeStats("select ?");
+        for (int i = 0; i < 98; i++) {
+            stats.recordExecution(1_000); // 1us
+        }
+        stats.recordExecution(1_000_000); // 1000us -> (512, 1024] 구간
+        stats.recordExecution(1_000_000);
+        stats.recordRows(3);
+        stats.recordRows(7);
+        stats.recordRows(5);
+
+        Map<String, Object> map = stats.toMap();
+        assertThat(map).containsEntry("sql", "select ?")
+                       .containsEntry("count", 100L)
+                       .containsEntry("p50Ms", 0.001)
+                       .containsEntry("p99Ms", 1.024)
+                       .containsEntry("maxMs", 1.0)
+                       .containsEntry("maxRows", 7L);
+        assertThat((double) map.get("totalMs")).isCloseTo(2.098, within(1e-9));
+        assertThat((double) map.get("avgMs")).isCloseTo(0.02098, within(1e-9));
+        assertThat(stats.totalNanos()).isEqualTo(2_098_000L);
+    }
+
+    @Test
+    public void emptyStats() {
+        Map<String, Object> map = new SqlShapeStats("select ?").toMap();
+
+        assertThat(map).containsEntry("count", 0L)
+                       .containsEntry("avgMs", 0.0)
+                       .containsEntry("p50Ms", 0.0)
+                       .containsEntry("p99Ms", 0.0);
+    }
+
+    @Test
+    public void veryLongExecutionsStayInLastBucket() {
+        SqlShapeStats stats = new SqlShapeStats("select ?");
+        stats.recordExecution(Long.MAX_VALUE / 2);
+
+        assertThat((double) stats.toMap().get("p99Ms")).isEqualTo((1L << 39) / 1000.0);
+    }
+}
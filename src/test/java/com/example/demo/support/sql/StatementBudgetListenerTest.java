@@ -0,0 +1,143 @@
+package com.example.demo.support.sql;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import com.example.demo.support.sql.StatementBudgetProperties.Mode;
+import com.p6spy.engine.common.StatementInformation;
+
+public class StatementBudgetListenerTest {
+
+    StatementBudgetProperties properties = new StatementBudgetProperties();
+    StatementBudgetListener listener = new StatementBudgetListener(properties);
+
+    @AfterEach
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void budgetTripsInFailMode() {
+        properties.setMode(Mode.FAIL);
+        properties.setMaxStatements(3);
+
+        StatementScope scope = listener.open("GET /v1/members");
+        try {
+            execute("select 1", "select 2", "select 3");
+            assertThatThrownBy(() -> execute("select 4"))
+                                            .isInstanceOf(StatementBudgetExceededException.class)
+                                            .hasMessageContaining("GET /v1/members: more than 3 statements");
+        } finally {
+            listener.close(scope);
+        }
+    }
+
+    @Test
+    public void repeatedStatementIsNPlusOne() {
+        properties.setMode(Mode.FAIL);
+        properties.setMaxRepeats(2);
+
+        StatementScope scope = listener.open("GET /v3/members");
+        try {
+            execute("select * from team where team_id = ?", "select * from team where team_id = ?", "select 1");
+            assertThatThrownBy(() -> execute("select * from team where team_id = ?"))
+                                            .isInstanceOf(StatementBudgetExceededException.class)
+                                            .hasMessageContaining("repeated 3 times (N+1?)");
+        } finally {
+            listener.close(scope);
+        }
+        assertThat(scope.getMostRepeatedSql()).isEqualTo("select * from team where team_id = ?");
+        assertThat(scope.getMostRepeatedCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void warnModeOnlyCounts() {
+        properties.setMaxStatements(1);
+        properties.setMaxRepeats(1);
+
+        StatementScope scope = listener.open("request");
+        try {
+            execute("select 1", "select 1", "select 1");
+        } finally {
+            listener.close(scope);
+        }
+        assertThat(scope.getStatements()).isEqualTo(3);
+        assertThat(scope.getMostRepeatedCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void scopesNestAndReset() {
+        StatementScope outer = listener.open("outer");
+        StatementScope inner = listener.open("inner");
+        execute("select 1");
+        listener.close(inner);
+        execute("select 2");
+        listener.close(outer);
+        execute("select 3"); // 열린 범위가 없다
+
+        assertThat(inner.getStatements()).isEqualTo(1);
+        assertThat(outer.getStatements()).isEqualTo(2);
+
+        StatementScope next = listener.open("next");
+        execute("select 4");
+        listener.close(next);
+        assertThat(next.getStatements()).isEqualTo(1);
+        assertThat(outer.getStatements()).isEqualTo(2);
+    }
+
+    @Test
+    public void transactionScopeClosesOnCompletion() {
+        properties.setMode(Mode.FAIL);
+        properties.setMaxStatements(2);
+
+        StatementScope request = listener.open("request");
+        try {
+            TransactionSynchronizationManager.initSynchronization();
+            execute("select 1", "select 2");
+            assertThat(TransactionSynchronizationManager.hasResource(listener)).isTrue();
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+            TransactionSynchronizationManager.clearSynchronization();
+            assertThat(TransactionSynchronizationManager.hasResource(listener)).isFalse();
+
+            // 트랜잭션 범위는 닫혔지만 요청 범위에는 계속 쌓인다
+            assertThatThrownBy(() -> execute("select 3"))
+                                            .isInstanceOf(StatementBudgetExceededException.class)
+                                            .hasMessageContaining("request");
+        } finally {
+            listener.close(request);
+        }
+    }
+
+    @Test
+    public void disabledDoesNothing() {
+        properties.setEnabled(false);
+        properties.setMode(Mode.FAIL);
+        properties.setMaxStatements(0);
+
+        StatementScope scope = listener.open("request");
+        try {
+            execute("select 1");
+        } finally {
+            listener.close(scope);
+        }
+        assertThat(scope.getStatements()).isZero();
+    }
+
+    private void execute(String... sqls) {
+        for (String sql : sqls) {
+            StatementInformation statement = mock(StatementInformation.class);
+            when(statement.getSql()).thenReturn(sql);
+            listener.onBeforeAnyExecute(statement);
+            listener.onAfterAnyExecute(statement, 1_000, null);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.demo.support.sql;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+
+public class StatementScopeTest {
+
+    @Test
+    public void countsRepeatsPerStatement() {
+        StatementScope scope = new StatementScope("request");
+
+        assertThat(scope.add("select a")).isEqualTo(1);
+        assertThat(scope.add("select b")).isEqualTo(1);
+        assertThat(scope.add("select b")).isEqualTo(2);
+        scope.addElapsed(500);
+        scope.addElapsed(700);
+
+        assertThat(scope.getStatements()).isEqualTo(3);
+        assertThat(scope.getElapsedNanos()).isEqualTo(1200);
+        assertThat(scope.getMostRepeatedSql()).isEqualTo("select b");
+        assertThat(scope.getMostRepeatedCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void stopsTrackingNewStatementsAtLimit() {
+        StatementScope scope = new StatementScope("request");
+        for (int i = 0; i < 1000; i++) {
+            scope.add("select " + i);
+        }
+
+        assertThat(scope.add("select new")).isEqualTo(1);
+        assertThat(scope.add("select new")).isEqualTo(1); // 상한을 넘은 SQL 은 반복을 세지 않는다
+        assertThat(scope.add("select 0")).isEqualTo(2);
+        assertThat(scope.getStatements()).isEqualTo(1003);
+        assertThat(scope.getRepeats()).hasSize(1000);
+    }
+}